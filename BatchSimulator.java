@@ -0,0 +1,269 @@
+package org.game;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+// Runs many independent games without any user input, and reports statistics over all of them.
+// Games run side by side on a pool with one game per worker at a time. Each worker takes the next game from a shared
+// counter as soon as it is free, so a worker held up by a long game does not leave the others idle at the end.
+// By default each game is round-based, so it is played on its worker thread without any player threads, and writes no output files.
+public class BatchSimulator {
+    // Supplies the pack for each game in a batch. The returned array is not changed by the game, so it may be shared.
+    @FunctionalInterface
+    public interface PackSource {
+        int[] createPack(int numPlayers, long gameIndex) throws IOException;
+    }
+
+    private final int numPlayers;            // Number of players in every game.
+    private final PackSource packSource;     // Where the pack for each game comes from.
+    private int parallelism = Runtime.getRuntime().availableProcessors(); // Number of games in progress at once.
+    private DeckType deckType = DeckType.RING_BUFFER;                     // Deck implementation used by every game.
+    private WaitStrategy waitStrategy = WaitStrategy.PARK;                // How players wait on an empty deck.
+    private ExecutionMode executionMode = ExecutionMode.ROUND_BASED;      // How the players of each game are run.
+    private boolean fileOutput = false;      // Games only write their output files if asked to.
+    private Long seed;                       // Seed for the batch, or null for unseeded games.
+
+    // Constructs a simulator for games with the given number of players and pack source.
+    public BatchSimulator(int numPlayers, PackSource packSource) {
+        if (numPlayers < 2) {
+            throw new IllegalArgumentException("A game needs at least 2 players");
+        }
+        if (packSource == null) {
+            throw new NullPointerException("Pack source can not be null");
+        }
+        this.numPlayers = numPlayers;
+        this.packSource = packSource;
+    }
+
+    // Sets the number of games run at the same time. Defaults to the number of cores.
+    public void setParallelism(int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be a positive integer");
+        }
+        this.parallelism = parallelism;
+    }
+
+    public void setDeckType(DeckType deckType) {
+        this.deckType = deckType;
+    }
+
+    public void setWaitStrategy(WaitStrategy waitStrategy) {
+        this.waitStrategy = waitStrategy;
+    }
+
+    public void setExecutionMode(ExecutionMode executionMode) {
+        this.executionMode = executionMode;
+    }
+
+    // Seeds the batch. Game i is seeded with seed + i, so with round-based games the same batch always gives the same results.
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+
+    // Turns the player and deck output files on. Every game writes to the same files, so this is mostly useful with one game.
+    public void setFileOutput(boolean fileOutput) {
+        this.fileOutput = fileOutput;
+    }
+
+    // Runs the given number of games and returns the statistics once all of them have finished.
+    public Result run(long games) throws IOException {
+        if (games < 1) {
+            throw new IllegalArgumentException("Game count must be a positive integer");
+        }
+        Result result = new Result(numPlayers);
+        long start = System.nanoTime();
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        // With pooled players, every game in progress needs a thread per player. The threads are kept for the whole batch.
+        ExecutorService playerPool = executionMode == ExecutionMode.PLATFORM_POOL ? Executors.newFixedThreadPool(parallelism * numPlayers) : null;
+        try {
+            AtomicLong nextGame = new AtomicLong(); // The index of the next game to be played.
+            List<ForkJoinTask<?>> tasks = new ArrayList<>();
+            for (int worker = 0; worker < parallelism; worker++) {
+                // Each task plays games until there are none left, taking one at a time, so fast and slow games even out
+                // without a task per game. A task deals each of its games into the same CardGame, so the players and
+                // decks are only built once per worker.
+                tasks.add(pool.submit(() -> {
+                    CardGame game = null;
+                    long gameIndex;
+                    while ((gameIndex = nextGame.getAndIncrement()) < games) {
+                        game = playGame(game, gameIndex, result, playerPool);
+                    }
+                    return null;
+                }));
+            }
+            for (ForkJoinTask<?> task : tasks) {
+                task.join();
+            }
+        } catch (RuntimeException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause(); // A pack could not be read.
+            }
+            throw e;
+        } finally {
+            pool.shutdown();
+            if (playerPool != null) {
+                playerPool.shutdown();
+            }
+        }
+        result.elapsedNanos = System.nanoTime() - start;
+        return result;
+    }
+
+    // Plays one game to the end and adds it to the result. The game is dealt into the given CardGame if there is one,
+    // otherwise a new one is created, running its players on the player pool if there is one. Returns the CardGame,
+    // so the next game can reuse it.
+    private CardGame playGame(CardGame game, long gameIndex, Result result, ExecutorService playerPool) throws IOException {
+        int[] pack = packSource.createPack(numPlayers, gameIndex);
+        if (game == null) {
+            game = new CardGame(numPlayers, pack, deckType);
+            game.setWaitStrategy(waitStrategy);
+            game.setExecutionMode(executionMode);
+            game.setFileOutput(fileOutput);
+            if (playerPool != null) {
+                game.setExecutor(playerPool);
+            }
+        } else {
+            game.reset(pack);
+        }
+        if (seed != null) {
+            game.setSeed(seed + gameIndex);
+        }
+        int winnerId = game.startGame().join(); // Completes as soon as the last player has stopped.
+        result.record(winnerId, game.getTurnsToWin());
+        return game;
+    }
+
+    // Creates a pack source that reads a pack file once and gives the same pack to every game.
+    public static PackSource fromFile(String filePath) throws IOException {
+        int[] pack = PackLoader.readValues(filePath);
+        checkWinnable(pack);
+        return (numPlayers, gameIndex) -> pack;
+    }
+
+    // Checks that some value appears at least four times. Otherwise nobody can ever hold a winning hand and the game never ends.
+    public static void checkWinnable(int[] pack) {
+        Map<Integer, Integer> counts = new HashMap<>();
+        for (int value : pack) {
+            if (counts.merge(value, 1, Integer::sum) >= 4) {
+                return;
+            }
+        }
+        throw new IllegalArgumentException("The pack has no four cards of the same value, so the game can never be won");
+    }
+
+    // The statistics collected over a batch of games.
+    public static class Result {
+        private final AtomicLongArray wins;   // Number of wins for each player, indexed by player ID - 1.
+        private final LongAdder games = new LongAdder();
+        private final LongAdder totalTurns = new LongAdder();
+        private final LongAccumulator minTurns = new LongAccumulator(Math::min, Long.MAX_VALUE);
+        private final LongAccumulator maxTurns = new LongAccumulator(Math::max, 0);
+        private long elapsedNanos;
+
+        private Result(int numPlayers) {
+            this.wins = new AtomicLongArray(numPlayers);
+        }
+
+        // Adds one finished game.
+        private void record(int winnerId, long turnsToWin) {
+            wins.incrementAndGet(winnerId - 1);
+            games.increment();
+            totalTurns.add(turnsToWin);
+            minTurns.accumulate(turnsToWin);
+            maxTurns.accumulate(turnsToWin);
+        }
+
+        // Gets the number of games the given player won.
+        public long getWins(int playerId) {
+            return wins.get(playerId - 1);
+        }
+
+        public long getGames() {
+            return games.sum();
+        }
+
+        // Gets the mean number of turns the winner took to win.
+        public double getMeanTurnsToWin() {
+            long count = games.sum();
+            return count == 0 ? 0 : (double) totalTurns.sum() / count;
+        }
+
+        public long getMinTurnsToWin() {
+            return games.sum() == 0 ? 0 : minTurns.get();
+        }
+
+        public long getMaxTurnsToWin() {
+            return maxTurns.get();
+        }
+
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+
+        public double getGamesPerSecond() {
+            return elapsedNanos == 0 ? 0 : games.sum() * 1_000_000_000.0 / elapsedNanos;
+        }
+
+        // Returns a summary of the batch, with one line per player for the winner distribution.
+        @Override
+        public String toString() {
+            StringBuilder builder = new StringBuilder();
+            builder.append("games: ").append(getGames()).append('\n');
+            builder.append("games per second: ").append(String.format("%.1f", getGamesPerSecond())).append('\n');
+            builder.append("turns to win: mean ").append(String.format("%.1f", getMeanTurnsToWin()))
+                    .append(", min ").append(getMinTurnsToWin())
+                    .append(", max ").append(getMaxTurnsToWin()).append('\n');
+            for (int i = 0; i < wins.length(); i++) {
+                builder.append("player ").append(i + 1).append(" wins: ").append(wins.get(i)).append('\n');
+            }
+            return builder.toString();
+        }
+    }
+
+    // Creates the pack source named on the command line: a PackGenerator distribution, seeded with the batch seed,
+    // or otherwise a pack file.
+    private static PackSource packSource(String pack, long seed) throws IOException {
+        for (PackGenerator.Distribution distribution : PackGenerator.Distribution.values()) {
+            if (distribution.name().equalsIgnoreCase(pack)) {
+                return new PackGenerator(distribution, seed);
+            }
+        }
+        return fromFile(pack);
+    }
+
+    // Runs a batch from the command line: BatchSimulator <players> <games> <pack file | uniform | skewed | adversarial> [parallelism] [seed]
+    public static void main(String[] args) {
+        if (args.length < 3) {
+            System.out.println("Usage: BatchSimulator <players> <games> <pack file | uniform | skewed | adversarial> [parallelism] [seed]");
+            return;
+        }
+        try {
+            int numPlayers = Integer.parseInt(args[0]);
+            long games = Long.parseLong(args[1]);
+            long seed = args.length > 4 ? Long.parseLong(args[4]) : 0;
+            BatchSimulator simulator = new BatchSimulator(numPlayers, packSource(args[2], seed));
+            if (args.length > 3) {
+                simulator.setParallelism(Integer.parseInt(args[3]));
+            }
+            if (args.length > 4) {
+                simulator.setSeed(seed);
+            }
+            System.out.print(simulator.run(games));
+        } catch (IOException e) {
+            System.out.println("An error occurred while reading the file: " + e.getMessage());
+        } catch (IllegalArgumentException e) {
+            System.out.println("Invalid input: " + e.getMessage());
+        }
+    }
+}
@@ -2,11 +2,26 @@ package org.game;
 
 // Represents a single card in a card game.
 // Each card has a fixed integer value that defines its rank or type.
+// Cards are immutable, so one shared instance per value can be used everywhere through Card.of.
 public class Card {
+    // Values below this have their shared card created up front, so looking them up is a single array read.
+    // Larger values are shared by each game instead (see CardGame.dealCard), so nothing outlives the game.
+    static final int CACHE_SIZE = 1024;
+
+    // The shared cards for small values, indexed by value.
+    private static final Card[] SMALL_CARDS = new Card[CACHE_SIZE];
+
+    static {
+        for (int i = 0; i < CACHE_SIZE; i++) {
+            SMALL_CARDS[i] = new Card(i);
+        }
+    }
+
     // The value of the card, e.g., rank or point value, stored as an integer.
     private final int value;
 
     // Constructs a Card object with a specific int value.
+    // Prefer Card.of, which returns the shared card for the value instead of a new object.
     public Card(Integer value) {
         // Checking that the value passed in is a valid card value.
         if (value == null || value < 0) {
@@ -16,11 +31,39 @@ public class Card {
         this.value = value; // Assigns the provided value to the card.
     }
 
-    // Retrieves the value of the card.
-    public Integer getValue() {
+    // Private constructor for the shared cards, taking the value without boxing it.
+    private Card(int value) {
+        this.value = value;
+    }
+
+    // Returns the shared card for a value below CACHE_SIZE, where cards with the same value are the same object.
+    // Larger values get a new card each time, as keeping one for every value ever asked for would hold on to them for good.
+    public static Card of(int value) {
+        if (value < 0) {
+            throw new IllegalArgumentException("Value must be non-negative integer");
+        }
+        if (value < CACHE_SIZE) {
+            return SMALL_CARDS[value];
+        }
+        return new Card(value);
+    }
+
+    // Retrieves the value of the card, as a primitive so comparisons never box.
+    public int getValue() {
         return value; // Returns the card's value.
     }
 
+    // Two cards are equal if they have the same value, whether or not they are the shared instance.
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof Card && ((Card) other).value == value;
+    }
+
+    @Override
+    public int hashCode() {
+        return Integer.hashCode(value);
+    }
+
     // Returns a string representation of the card int value.
     @Override
     public String toString() {
@@ -1,37 +1,194 @@
 package org.game;
 
+import java.util.ArrayList;
 import java.util.LinkedList;
+import java.util.List;
 import java.util.Queue;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BooleanSupplier;
 
 // Represents a deck of cards that players can discard to and pick up from.
 // The deck is implemented as a linked list queue to maintain the order of cards.
-// All methods are synchronized to make them thread-safe in this multi-threaded environment.
+// All methods hold the deck's lock to make them thread-safe in this multi-threaded environment.
+// A ReentrantLock is used rather than synchronized so a player on a virtual thread does not pin its carrier thread.
+// The game's other locks (the event log, the logger and the file sink) are ReentrantLocks for the same reason.
+// Subclasses such as RingBufferCardDeck may replace the storage while keeping the same API.
 public class CardDeck {
     // A queue to hold the cards in the deck.
     // The LinkedList implementation ensures FIFO (First In, First Out) behavior. To keep in line with the style of a deck of cards.
     private final Queue<Card> deck = new LinkedList<>();
 
+    // Guards the queue.
+    private final ReentrantLock lock = new ReentrantLock();
+
+    // Number of cards drawn since the deck was created or reset, which is also the position of the top card.
+    // Every card added gets the next position, so a position always names the same card. Guarded by the lock.
+    private long drawn;
+
+    // The player thread parked waiting for a card, or null if nobody is parked on this deck.
+    private volatile Thread waiter;
+
+    // Number of times a thread found the lock held and had to wait for it. Striped, so counting does not add contention of its own.
+    private final LongAdder contention = new LongAdder();
+
     // Add a card to the bottom of the deck.
-    public synchronized void addCard(Card card) {
+    public void addCard(Card card) {
         if (card == null) {
             throw new NullPointerException("Card value can not be null");
         }
-        deck.offer(card); // Adds the card to the queue.
+        acquire();
+        try {
+            deck.offer(card); // Adds the card to the queue.
+        } finally {
+            lock.unlock();
+        }
+        signalWaiter();   // Wakes the player waiting for a card, if there is one.
     }
 
     // Draw (remove) a card from the top of the deck.
-    public synchronized Card drawCard() {
-        return deck.poll(); // Removes and returns the card from the front of the queue.
+    public Card drawCard() {
+        acquire();
+        try {
+            Card card = deck.poll(); // Removes and returns the card from the front of the queue.
+            if (card != null) {
+                drawn++;
+            }
+            return card;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Takes the lock for a card being added or drawn, counting the times it is already held by another thread.
+    private void acquire() {
+        if (!lock.tryLock()) {
+            contention.increment();
+            lock.lock();
+        }
+    }
+
+    // Draw a card from the top of the deck, waiting with the given strategy while the deck is empty.
+    // Returns null without a card if stopped becomes true while waiting (e.g. the game has been won).
+    public Card awaitCard(WaitStrategy strategy, BooleanSupplier stopped) {
+        int attempt = 0;
+        Card card;
+        while ((card = drawCard()) == null) {
+            if (stopped.getAsBoolean()) {
+                return null;
+            }
+            strategy.idle(this, attempt++);
+        }
+        return card;
+    }
+
+    // Parks the calling thread while the deck is empty, for at most the given time. Used by WaitStrategy.PARK.
+    void parkUntilSignalled(long nanos) {
+        waiter = Thread.currentThread();
+        // Checks again after registering, so a card added in between is not missed.
+        if (isEmpty()) {
+            LockSupport.parkNanos(this, nanos);
+        }
+        waiter = null;
+    }
+
+    // Unparks the thread waiting on this deck. Implementations must call this after every card they add.
+    protected void signalWaiter() {
+        Thread parked = waiter;
+        if (parked != null) {
+            LockSupport.unpark(parked);
+        }
     }
 
     // Check if the deck is empty.
-    public synchronized boolean isEmpty() {
-        return deck.isEmpty(); // Returns true if the queue is empty.
+    public boolean isEmpty() {
+        lock.lock();
+        try {
+            return deck.isEmpty(); // Returns true if the queue is empty.
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Returns the number of cards in the deck.
+    public int size() {
+        lock.lock();
+        try {
+            return deck.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Returns the number of times adding or drawing a card had to wait for another thread to release the deck.
+    public long getContention() {
+        return contention.sum();
+    }
+
+    // Check if the deck can not take another card. The linked list deck is unbounded, so it is never full.
+    public boolean isFull() {
+        return false;
+    }
+
+    // Removes every card and zeroes the counters, so the deck can be used for a new game.
+    // Must not be called while players are using the deck.
+    public void reset() {
+        lock.lock();
+        try {
+            deck.clear();
+            drawn = 0;
+        } finally {
+            lock.unlock();
+        }
+        contention.reset();
+    }
+
+    // Copies the values of the cards at positions from (inclusive) to to (exclusive) into the array, where position 0
+    // is the first card added since the deck was created or reset. Returns false, leaving the array partly filled,
+    // if any of them has already been drawn or not been added yet. Used by CardGame.snapshot on a running game.
+    // The linked list deck holds its lock for the copy, as size does.
+    boolean copyRange(long from, long to, int[] into) {
+        lock.lock();
+        try {
+            if (from < drawn || to > drawn + deck.size()) {
+                return false;
+            }
+            int index = 0;
+            long position = drawn;
+            for (Card card : deck) {
+                if (position >= to) {
+                    break;
+                }
+                if (position >= from) {
+                    into[index++] = card.getValue();
+                }
+                position++;
+            }
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Returns a copy of the cards in the deck, from the top (next to be drawn) to the bottom.
+    public List<Card> toList() {
+        lock.lock();
+        try {
+            return new ArrayList<>(deck);
+        } finally {
+            lock.unlock();
+        }
     }
 
     // Returns a string representation of the deck.
     @Override
-    public synchronized String toString() {
-        return deck.toString(); // Returns the deck as a string format.
+    public String toString() {
+        lock.lock();
+        try {
+            return deck.toString(); // Returns the deck as a string format.
+        } finally {
+            lock.unlock();
+        }
     }
 }
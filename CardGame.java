@@ -1,58 +1,220 @@
 package org.game;
 
 import java.io.*;
+import java.lang.management.ManagementFactory;
+import java.nio.IntBuffer;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.management.JMException;
+import javax.management.ObjectName;
 
 public class CardGame {
     private final int numPlayers;            // Number of players participating in the game.
+    private final DeckType deckType;         // The deck implementation used for every deck in the game.
     private final List<Player> players;      // List to hold all player instances.
     private final List<CardDeck> decks;      // List to hold all deck instances.
-    private final List<Card> pack;           // List to represent the entire pack of cards. Uses instances of Card.
-    private volatile Integer winnerId;       // Shared variable to store the winner's ID (thread-safe).
-    private volatile boolean gameWon;        // Flag to indicate if the game has been won (thread-safe).
+    private final AtomicInteger winner = new AtomicInteger(); // The winner's ID, or 0 until a player claims the win with a single CAS.
+    private Card[] largeCards = new Card[0]; // The game's shared cards for values from Card.CACHE_SIZE, indexed by value - CACHE_SIZE.
+    private WaitStrategy waitStrategy = WaitStrategy.PARK; // How players wait when their left deck is empty.
+    private ExecutionMode executionMode = ExecutionMode.DEDICATED_THREADS; // Which threads run the players.
+    private ExecutorService executor;        // Runs the player tasks. Either given by the caller or created for this game.
+    private boolean ownsExecutor;            // True if the executor was created by this game and is shut down at the end.
+    private final AtomicInteger playersRunning;   // Counts down as each player task returns. The last one out finishes the game.
+    private volatile CompletableFuture<Integer> completion = new CompletableFuture<>(); // Completed with the winner's ID once the game is over.
+    private volatile CompletableFuture<Void> output = new CompletableFuture<>(); // Completed once the game's files are written.
+    private volatile boolean started;             // True once startGame has been called for the current deal.
+    private OutputSink outputSink = FileOutputSink.workingDirectory(); // Where the player and deck output goes.
+    private Long seed;                       // Seed for the players' random sources, or null for unseeded players.
+    private boolean turnTiming;              // True if the players record how long each turn takes.
+    private volatile boolean stopped;        // True once a player has failed, so the others stop without a winner.
+    private volatile long winNanos;          // When the winning hand was found, from System.nanoTime. 0 until then.
+    private volatile long stoppedNanos;      // When the last player stopped, from System.nanoTime. 0 until then.
+    private static final AtomicLong gameIds = new AtomicLong(); // Numbers the games, so each can have its own JMX name.
+    private final long gameId = gameIds.incrementAndGet();       // This game's number.
+    private volatile EventLog eventLog;      // The binary record of the game, or null if it does not keep one.
+    private ObjectName metricsName;          // The name the game's metrics are registered under in JMX, or null if they are not.
 
     // Constructor to initialize the game with the number of players and the card pack file
     public CardGame(int numPlayers, String packFilePath) throws IOException {
+        this(numPlayers, packFilePath, DeckType.LOCKED);
+    }
+
+    // Constructor to initialize the game with the number of players, the card pack file and the deck implementation to use.
+    // The pack is read, checked and dealt in a single pass. Throws InvalidFileException if it is not a valid pack for the players.
+    public CardGame(int numPlayers, String packFilePath, DeckType deckType) throws IOException {
+        this(numPlayers, deckType);
+        initializeGame();                     // Calls the method that sets up players and decks.
+        loadPack(packFilePath);               // Load the pack of cards from the specified file, dealing each card as it is read.
+    }
+
+    // Constructor to initialize the game from a pack already in memory, e.g. one shared by many games in a batch.
+    // The pack must hold 8 non-negative card values per player, in the order they would appear in a pack file.
+    public CardGame(int numPlayers, int[] packValues, DeckType deckType) {
+        this(numPlayers, IntBuffer.wrap(packValues), deckType);
+    }
+
+    // Constructor to initialize the game from a pack in a buffer, e.g. a large pack made by PackGenerator outside the heap.
+    // The cards from the buffer's position to its limit are dealt straight from the buffer, which is left unchanged.
+    public CardGame(int numPlayers, IntBuffer packValues, DeckType deckType) {
+        this(numPlayers, deckType);
+        checkPack(packValues);
+        initializeGame();                     // Calls the method that sets up players and decks.
+        dealPack(packValues);
+    }
+
+    // Sets up the fields shared by every constructor, before the pack is loaded.
+    private CardGame(int numPlayers, DeckType deckType) {
+        if (deckType == null) {
+            throw new NullPointerException("Deck type can not be null");
+        }
         this.numPlayers = numPlayers;         // Assign number of players from the parameter.
+        this.deckType = deckType;             // Assign the deck implementation from the parameter.
         this.players = new ArrayList<>();     // Initialize the player list.
         this.decks = new ArrayList<>();       // Initialize the deck list.
-        this.pack = new ArrayList<>();        // Initialize the pack list.
-        this.winnerId = null;                 // No winner initially.
-        this.gameWon = false;                 // Initialize gameWon to false. Game is not won initially.
-        loadPack(packFilePath);               // Load the pack of cards from the specified file.
-        initializeGame();                     // Calls the method that sets up players, decks, and distribute cards.
+        this.playersRunning = new AtomicInteger(numPlayers); // Every player has to finish before the game is over.
     }
 
-    // Sets the gameWon flag to true when a player wins.
-    public void setGameWon() {
-        gameWon = true;
+    // Claims the win for the given player. Only the first claim succeeds, so exactly one player is ever the winner
+    // even if several find a winning hand at the same moment. Returns true if this player is the winner.
+    public boolean claimWin(int id) {
+        if (winner.compareAndSet(0, id)) {
+            winNanos = System.nanoTime(); // Start of the win path, timed until every player has stopped.
+            return true;
+        }
+        return winner.get() == id;
     }
 
-    // Gets the value of the gameWon flag.
+    // Checks if the game has been won.
     public boolean getGameWon() {
-        return gameWon;
+        return winner.get() != 0;
     }
 
-    // Load the pack of acrds from a file, each line containing a single card value.
-    private void loadPack(String filePath) throws IOException {
-        // Tries to the load the file path.
-        try (BufferedReader bufferedReaderOfFilePath = new BufferedReader(new FileReader(filePath))) {
-            String line;
-            while ((line = bufferedReaderOfFilePath.readLine()) != null) {
-                int value = Integer.parseInt(line.trim());   // Parse the card value to an int.
-                pack.add(new Card(value));                  // Add card to the pack.
-            }
+    // Checks if the players should stop: the game has been won, or a player has failed.
+    public boolean isGameOver() {
+        return stopped || winner.get() != 0;
+    }
+
+    // Sets how the players wait for a card when their left deck is empty. Must be called before startGame.
+    public void setWaitStrategy(WaitStrategy waitStrategy) {
+        if (waitStrategy == null) {
+            throw new NullPointerException("Wait strategy can not be null");
+        }
+        this.waitStrategy = waitStrategy;
+    }
+
+    // Gets the wait strategy used by the players.
+    public WaitStrategy getWaitStrategy() {
+        return waitStrategy;
+    }
+
+    // Turns the player and deck output files on or off. With output off the game touches no files at all,
+    // which is what batch simulations want. Must be called before startGame.
+    // The same as setting a FileOutputSink for the working directory, or the NullOutputSink.
+    public void setFileOutput(boolean fileOutput) {
+        setOutputSink(fileOutput ? FileOutputSink.workingDirectory() : NullOutputSink.INSTANCE);
+    }
+
+    // Checks if the game writes any player and deck output.
+    public boolean isFileOutput() {
+        return outputSink != NullOutputSink.INSTANCE;
+    }
+
+    // Sets where the player and deck output goes, e.g. files in another directory, so games can run side by side,
+    // or memory, so a test touches no files. Must be called before startGame.
+    public void setOutputSink(OutputSink outputSink) {
+        if (outputSink == null) {
+            throw new NullPointerException("Output sink can not be null");
+        }
+        this.outputSink = outputSink;
+    }
+
+    public OutputSink getOutputSink() {
+        return outputSink;
+    }
+
+    // Sets which threads run the players. Must be called before startGame.
+    public void setExecutionMode(ExecutionMode executionMode) {
+        if (executionMode == null) {
+            throw new NullPointerException("Execution mode can not be null");
         }
+        this.executionMode = executionMode;
+    }
+
+    // Gets which threads run the players.
+    public ExecutionMode getExecutionMode() {
+        return executionMode;
+    }
+
+    // Seeds the players' random sources, so their discards can be repeated. Each player gets its own seed derived from this one.
+    // Together with ExecutionMode.ROUND_BASED the same pack and seed always play out the same game. Must be called before startGame.
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+
+    // Gets the seed for the players' random sources, or null if the players are unseeded.
+    public Long getSeed() {
+        return seed;
+    }
+
+    // Turns the timing of every turn on or off. Off by default, as it reads the clock twice per turn. Must be called before startGame.
+    public void setTurnTiming(boolean turnTiming) {
+        this.turnTiming = turnTiming;
+    }
+
+    // Checks if the players record how long each turn takes.
+    public boolean isTurnTiming() {
+        return turnTiming;
     }
 
-    // Initialize players, decks, and distribute cards.
+    // Records the game to a compact binary event log in the given file, replacing any earlier file. The deal is recorded
+    // straight away, the players then record every draw, discard, win and exit. GameReplay reads the file back.
+    // This is separate from the text output files, which can be turned off. Must be called before startGame.
+    public void setEventLog(String fileName) throws IOException {
+        EventLog newLog = new EventLog(fileName, numPlayers);
+        newLog.recordDeal(players, decks);
+        if (eventLog != null) {
+            eventLog.close(); // Only the latest file is used.
+        }
+        eventLog = newLog;
+    }
+
+    // Runs the players on the given executor instead of one created for the game, e.g. a pool shared between games,
+    // or kept for every reset of one game so no new threads are started. The executor is not shut down by the game.
+    // Must be called before startGame. A ThreadPoolExecutor that can not run every player at once is refused.
+    public void setExecutor(ExecutorService executor) {
+        if (executor == null) {
+            throw new NullPointerException("Executor can not be null");
+        }
+        if (isUndersized(executor)) {
+            throw new IllegalArgumentException("The executor needs at least " + numPlayers + " threads to run every player");
+        }
+        this.executor = executor;
+        this.executionMode = ExecutionMode.PLATFORM_POOL;
+    }
+
+    // Load the pack of cards from a file, each line containing a single card value.
+    // The file is read once, and each card is dealt as soon as it is read.
+    private void loadPack(String filePath) throws IOException {
+        PackLoader.load(filePath, 8 * numPlayers, this::dealCard);
+    }
+
+    // Initialize players and decks. The cards are dealt to them afterwards by dealCard.
     private void initializeGame() {
         // Create one deck for each player.
         for (int i = 0; i < numPlayers; i++) {
-            decks.add(new CardDeck());
+            decks.add(deckType.createDeck(numPlayers));
         }
 
         // Create players and assign decks
@@ -61,77 +223,570 @@ public class CardGame {
             CardDeck rightDeck = decks.get((i + 1) % numPlayers); // Player's right deck.
             players.add(new Player(i + 1, leftDeck, rightDeck));  // Create a new player. Passing in the player id and the left and right decks.
         }
+    }
+
+    // Checks a pack in memory holds 8 non-negative card values per player.
+    private void checkPack(IntBuffer packValues) {
+        if (packValues.remaining() != 8 * numPlayers) {
+            throw new IllegalArgumentException("Invalid pack size. Expected " + (8 * numPlayers) + " cards.");
+        }
+        for (int i = packValues.position(); i < packValues.limit(); i++) {
+            if (packValues.get(i) < 0) {
+                throw new IllegalArgumentException("Card value can not be negative");
+            }
+        }
+    }
 
-        // Distributes cards to players and decks.
-        distributeInitialCards();
+    // Deals a whole pack in memory, in the same order as a pack file. Reads by index, so the buffer's position is not moved.
+    private void dealPack(IntBuffer packValues) {
+        int start = packValues.position();
+        for (int i = 0; i < packValues.remaining(); i++) {
+            dealCard(i, packValues.get(start + i));
+        }
     }
 
-    // Distribute 4 cards to each player's hand and 4 to each deck.
-    private void distributeInitialCards() {
-        int index = 0;  // Track the next card to distribute.
+    // Deals a new pack into the existing players and decks, so the same game can be played again without building
+    // new players, decks or hands. Tournaments of many short games reuse one game this way.
+    // The settings are kept, so a seeded game replays the same seed unless setSeed is called again. A game that keeps
+    // an event log needs setEventLog again, as each file holds one game. Can not be called while the game is running.
+    public void reset(int[] packValues) {
+        reset(IntBuffer.wrap(packValues));
+    }
 
-        // Deal 4 cards to each player's hand.
-        for (int i = 0; i < 4; i++) {
-            for (Player player : players) {
-                player.addInitialCards(pack.get(index++));  // Calls the method in player class to add card to player's hand.
-            }
+    // Deals a new pack from a buffer into the existing players and decks, as reset does for an array.
+    public void reset(IntBuffer packValues) {
+        checkPack(packValues); // Checked before anything is cleared, so an invalid pack leaves the last game as it was.
+        if (started && (playersRunning.get() != 0 || !completion.isDone())) {
+            throw new IllegalStateException("The game is still running");
+        }
+        if (started) {
+            output.join(); // The last game's files must be written before the players start on the same files again.
+        }
+        for (Player player : players) {
+            player.reset();
+        }
+        for (CardDeck deck : decks) {
+            deck.reset();
+        }
+        winner.set(0);
+        stopped = false;
+        winNanos = 0;
+        stoppedNanos = 0;
+        playersRunning.set(numPlayers);
+        completion = new CompletableFuture<>();
+        output = new CompletableFuture<>();
+        EventLog unplayedLog = eventLog;
+        if (!started && unplayedLog != null) {
+            unplayedLog.close(); // Set up for a deal that was never played, so nothing else would close it.
         }
+        eventLog = null;  // Closed at the end of the last game, or just above if it was never started.
+        if (ownsExecutor) {
+            executor = null; // Shut down after the last game, a new one is created when the game starts.
+            ownsExecutor = false;
+        }
+        started = false;
+        dealPack(packValues);
+    }
+
+    // Deals the card at the given position in the pack.
+    // The first 4 cards per player go round the players' hands in turn, the other 4 per player go round the decks.
+    private void dealCard(int position, int value) {
+        Card card = sharedCard(value); // The shared card for the value, so a pack of repeated values holds no duplicate objects.
+        int handCards = 4 * numPlayers;
+        if (position < handCards) {
+            players.get(position % numPlayers).addInitialCards(card);   // Calls the method in player class to add card to player's hand.
+        } else {
+            decks.get((position - handCards) % numPlayers).addCard(card); // Calls the method in deck class to add card to the deck.
+        }
+    }
 
-        // Add 4 cards to each deck.
-        for (int j = 0; j < 4; j++) {
-            for (CardDeck deck : decks) {
-                deck.addCard(pack.get(index++)); // // Calls the method in deck class to add card to the deck.
+    // Gets the card for a value, shared by every card of that value in the game. Values below Card.CACHE_SIZE use the
+    // cards shared by every game. Larger ones are kept by the game, for values below 8 per player (every value in a
+    // generated pack), so the cache never holds more than the pack and goes when the game does. It is kept across
+    // reset, as the cards never change. Only called while dealing, on one thread.
+    private Card sharedCard(int value) {
+        int index = value - Card.CACHE_SIZE;
+        if (index < 0) {
+            return Card.of(value);
+        }
+        if (index >= largeCards.length) {
+            long limit = 8L * numPlayers - Card.CACHE_SIZE;
+            if (index >= limit) {
+                return Card.of(value); // A value larger than the pack needs is rare, so it is not kept.
             }
+            // Grows by doubling, so a pack dealt in any order only copies the array a few times.
+            largeCards = Arrays.copyOf(largeCards, (int) Math.min(limit, Math.max(index + 1L, 2L * largeCards.length)));
         }
+        Card card = largeCards[index];
+        if (card == null) {
+            card = Card.of(value);
+            largeCards[index] = card;
+        }
+        return card;
     }
 
     // Creates the deck log files after the game is finished.
     public void deckFileCreation() {
+        writeDeckFiles(snapshotDecks());
+    }
+
+    // Copies the contents of every deck as the text of its output file. Cheap next to writing the files, and only
+    // consistent once nothing moves the cards any more.
+    private String[] snapshotDecks() {
+        String[] contents = new String[numPlayers];
+        for (int i = 0; i < numPlayers; i++) {
+            contents[i] = decks.get(i).toString();
+        }
+        return contents;
+    }
+
+    // Writes the deck log files from a snapshot of the decks.
+    private void writeDeckFiles(String[] deckContents) {
         int counter = 1;
         // Iterates through each deck and writes to the file the contents of the deck.
-        for (CardDeck currentDeck : decks) {
+        for (String currentDeckFileContents : deckContents) {
             String currentDeckFileName = ("deck" + counter + "_output.txt");
-            String currentDeckFileContents = currentDeck.toString();
 
-            try (FileWriter writer = new FileWriter(currentDeckFileName, false)) {
-                // One card of the deck is written on each line.
-                writer.write(currentDeckFileContents + "\n");
-            } catch (IOException e) {
-                e.printStackTrace(); // Handles any errors encouted when trying to write to the deck files.
-            }
+            // Replaces the deck's output with its contents.
+            outputSink.replace(currentDeckFileName, currentDeckFileContents + "\n");
             counter++; // Incrementing the counter.
         }
     }
 
     // Notify all players that a winner has been declared.
-    public synchronized void notifyAllPlayers(int id) {
-        winnerId = id;           // Set the winner's ID.
-        stopAllPlayers();        // Stop all player threads.
-        deckFileCreation();      // Create deck output files.
+    // Claims the win for the player if nobody has yet, then wakes every player so it sees the win straight away.
+    // Each losing player logs its own final state on its own thread, and the last player to stop finishes the game.
+    public void notifyAllPlayers(int id) {
+        claimWin(id);            // Set the winner's ID, unless another player already has.
+        wakeAllPlayers();        // Wake any players parked on an empty deck so they see the win.
+    }
+
+    // Ends the game once every player has stopped. Nothing moves the cards any more, so a snapshot of the decks taken now
+    // always matches the players' final hands. The game is over as soon as the snapshot is taken: the output is written
+    // afterwards by the output sink, off this player's thread, and the output future completes once it is all in place.
+    private void finishGame() {
+        try {
+            stoppedNanos = System.nanoTime(); // The last player has stopped.
+            if (isFileOutput()) {
+                writeDeckFiles(snapshotDecks()); // Only queued if the sink writes in the background.
+            }
+            writeOutput();
+            completion.complete(getWinnerId());
+        } catch (RuntimeException e) {
+            completion.completeExceptionally(e);
+            output.complete(null); // Nothing more will be written.
+            throw e;
+        }
     }
 
-    // Stops all losing player threads
-    private void stopAllPlayers() {
+    // Starts writing out everything the players and decks have logged, and the rest of the event log, without waiting.
+    // Completes the output future once it is all written.
+    private void writeOutput() {
+        CompletableFuture<Void> gameOutput = output;
+        EventLog currentEventLog = eventLog;
+        CompletableFuture<Void> written = outputSink.close();
+        if (currentEventLog != null) {
+            // Closed on the sink's thread once it has finished, or on another thread if there is nothing left to wait for.
+            written = written.isDone() ? CompletableFuture.runAsync(currentEventLog::close) : written.thenRun(currentEventLog::close);
+        }
+        written.whenComplete((result, failure) -> gameOutput.complete(null));
+    }
+
+    // Gets a future that completes once the game is over and its output files and event log are all written.
+    // The game's own future completes first, as soon as the final state has been taken.
+    public CompletableFuture<Void> getOutputFuture() {
+        return output;
+    }
+
+    // Unparks every player so none of them sleeps through the end of the game.
+    private void wakeAllPlayers() {
         for (Player player : players) {
-            player.stopRunning(winnerId, numPlayers);  // Calls the method that notifies each losing player of the game's end.
+            player.wakeUp();
         }
     }
 
-    // Get the winner's ID
+    // Get the winner's ID, or null if nobody has won yet.
     public Integer getWinnerId() {
-        return winnerId;
+        int id = winner.get();
+        return id == 0 ? null : id;
     }
 
-    // Start the game by launching all player threads.
-    public void startGame() {
+    // Gets the number of players in the game.
+    public int getNumPlayers() {
+        return numPlayers;
+    }
+
+    // Gets the total time all players have spent waiting for a card, in nanoseconds.
+    public long getTotalIdleNanos() {
+        long total = 0;
+        for (Player player : players) {
+            total += player.getIdleNanos();
+        }
+        return total;
+    }
+
+    // Gets the number of times all players have had to wait for a card.
+    public long getTotalIdleCount() {
+        long total = 0;
+        for (Player player : players) {
+            total += player.getIdleCount();
+        }
+        return total;
+    }
+
+    // Gets the number of turns all players have completed so far.
+    public long getTotalTurns() {
+        long total = 0;
         for (Player player : players) {
+            total += player.getTurns();
+        }
+        return total;
+    }
+
+    // Gets the number of turns the winner took to win, or -1 if nobody has won yet.
+    public long getTurnsToWin() {
+        Integer currentWinner = getWinnerId();
+        if (currentWinner == null) {
+            return -1;
+        }
+        return players.get(currentWinner - 1).getTurns();
+    }
+
+    // Get the deck implementation used by this game.
+    public DeckType getDeckType() {
+        return deckType;
+    }
+
+    // Start the game by submitting every player task to the executor for the execution mode.
+    // A round-based game is instead played on the calling thread, so it is over when this returns.
+    // Returns a future that completes with the winner's ID once every player has stopped and the final state has been taken.
+    // The output files may still be being written then: wait for getOutputFuture before reading them.
+    // Use get with a timeout, or orTimeout, to bound the wait. It completes exceptionally if a player fails.
+    public CompletableFuture<Integer> startGame() {
+        if (executionMode == ExecutionMode.ROUND_BASED) {
+            // No executor is needed, the players are driven one turn at a time on this thread.
+            startRounds();
+            RuntimeException failure = null;
+            try {
+                playRounds(Integer.MAX_VALUE);
+            } catch (RuntimeException e) {
+                failure = e;
+            }
+            finishRounds(failure);
+            return completion;
+        }
+        // Checked again here as the pool may have been shrunk since, and before the deal so the game can still be started.
+        if (executor != null && isUndersized(executor)) {
+            throw new IllegalStateException("The executor needs at least " + numPlayers + " threads to run every player");
+        }
+        beginDeal();
+        if (executor == null) {
+            executor = executionMode.createExecutor(numPlayers); // A new executor just for this game.
+            ownsExecutor = true;
+        }
+        preparePlayers();
+        // Every player is set up before any starts, as a player that wins straight away ends the game for all of them.
+        int submitted = 0;
+        try {
+            for (Player player : players) {
+                executor.execute(() -> runPlayer(player)); // Start the player's task.
+                submitted++;
+            }
+        } catch (RejectedExecutionException e) {
+            // The players already submitted can never win against players that never start, so they are stopped.
+            // The players that were not submitted count as stopped, and whoever stops last finishes the game.
+            stopPlayers(e);
+            if (playersRunning.addAndGet(submitted - numPlayers) == 0) {
+                finishGame();
+            }
+        }
+        if (ownsExecutor) {
+            executor.shutdown(); // No more tasks are submitted. The threads end once the players have.
+        }
+        return completion;
+    }
+
+    // Checks if the executor is a pool that can not run every player at once. Each player task runs until the game is
+    // over, so a player left in the queue would never start. A pool only starts threads beyond its core size when its
+    // queue refuses a task, which only a SynchronousQueue does every time. Other executors can not be checked.
+    private boolean isUndersized(ExecutorService executor) {
+        if (!(executor instanceof ThreadPoolExecutor)) {
+            return false;
+        }
+        ThreadPoolExecutor pool = (ThreadPoolExecutor) executor;
+        if (pool.getCorePoolSize() >= numPlayers) {
+            return false;
+        }
+        return pool.getMaximumPoolSize() < numPlayers || !(pool.getQueue() instanceof SynchronousQueue);
+    }
+
+    // Marks the current deal as started. A deal can only be played once.
+    private void beginDeal() {
+        if (started) {
+            throw new IllegalStateException("The game has already been started. Call reset to deal a new game");
+        }
+        started = true;
+    }
+
+    // Sets up every player for the game: output, seed, wait strategy and the other settings.
+    private void preparePlayers() {
+        boolean logging = isFileOutput();
+        outputSink.open(); // Starts the background writer, for a sink that has one.
+        SplittableRandom seeds = seed == null ? null : new SplittableRandom(seed); // Gives each player its own seed, in order of ID.
+        for (Player player : players) {
+            if (seeds != null) {
+                player.setSeed(seeds.nextLong());
+            }
+            player.setOutputSink(outputSink);  // Players write their output to the game's sink.
+            player.setOutputEnabled(logging);  // Without output, players skip building their log lines altogether.
+            if (logging) {
+                player.clearOutputFile(); // Clears any previous game's output before the player starts logging.
+            }
             player.setMain(this);  // Pass this CardGame instance to the players.
-            player.start();        // Start the player's thread.
+            player.setWaitStrategy(waitStrategy); // Tell the player how to wait on an empty deck.
+            player.setTurnTiming(turnTiming); // Tell the player whether to time its turns.
+            player.setEventLog(eventLog); // Players record to the event log, if the game keeps one.
         }
     }
 
+    // Starts the game for a caller that drives the players itself, a few rounds at a time through playRounds, on
+    // whichever thread it likes but never on two at once. Used by the round-based mode and by TableManager.
+    // Logs every initial hand and checks the deal for a winner. Returns the game's future.
+    CompletableFuture<Integer> startRounds() {
+        beginDeal();
+        preparePlayers();
+        for (Player player : players) {
+            player.markStarted();
+        }
+        // All the initial hands are logged before anyone can win, as they would be when every player has its own thread.
+        for (Player player : players) {
+            player.logInitialHand();
+        }
+        for (Player player : players) {
+            if (player.checkInitialWin()) {
+                break;
+            }
+        }
+        return completion;
+    }
+
+    // Plays at most the given number of rounds. In each round every player takes one turn, in order of ID.
+    // No thread timing is involved, so with seeded players the winner and every output file are always the same.
+    // Returns true once the game has been won, then finishRounds must be called.
+    boolean playRounds(int maxRounds) {
+        for (int round = 0; round < maxRounds && !getGameWon(); round++) {
+            boolean anyTurn = false; // True once a player has been able to take a turn this round.
+            for (Player player : players) {
+                if (player.takeTurn()) {
+                    anyTurn = true;
+                    if (getGameWon()) {
+                        return true; // The player has just won, so the game ends before the rest of the round.
+                    }
+                }
+            }
+            if (!anyTurn) {
+                // The cards in the decks never all run out, so this only happens if a deck is too small for the game.
+                throw new IllegalStateException("No player could take a turn in a round");
+            }
+        }
+        return getGameWon();
+    }
+
+    // Ends a game driven through playRounds, once it has been won or with the exception that stopped it.
+    void finishRounds(RuntimeException failure) {
+        try {
+            if (failure == null) {
+                stopLosingPlayers(); // The losing players log their final state, in order of ID.
+            }
+        } finally {
+            for (Player player : players) {
+                player.markStopped();
+            }
+            playersRunning.set(0); // Every player is finished once the rounds are over.
+        }
+        if (failure != null) {
+            completion.completeExceptionally(failure);
+        }
+        finishGame(); // Still closes the output after a failure. The future keeps the failure.
+    }
+
+    // Has every player but the winner log its final state, as a player thread does when it sees the win.
+    private void stopLosingPlayers() {
+        int winnerId = winner.get();
+        for (Player player : players) {
+            player.stopRunning(winnerId, numPlayers);
+        }
+    }
+
+    // Runs one player task and records that it has finished. The last player to finish ends the game.
+    private void runPlayer(Player player) {
+        try {
+            player.run();
+        } catch (RuntimeException | Error e) {
+            stopPlayers(e);
+            throw e;
+        } finally {
+            if (playersRunning.decrementAndGet() == 0) {
+                finishGame();
+            }
+        }
+    }
+
+    // Fails the game and stops every player. Nobody can win now, so the other players stop as well, including any
+    // parked on an empty deck, and the last one to stop finishes the game.
+    private void stopPlayers(Throwable failure) {
+        completion.completeExceptionally(failure); // Whoever waits on the game hears about the failure straight away.
+        stopped = true;
+        wakeAllPlayers();
+    }
+
+    // Waits until every player task has finished and the output is written, for at most the given time.
+    // Returns false if the time ran out.
+    public boolean awaitPlayers(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        try {
+            completion.get(timeout, unit);
+            output.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            return false;
+        } catch (ExecutionException e) {
+            // A player failed. The game is still over as far as waiting goes.
+        }
+        return true;
+    }
+
+    // Takes a snapshot of the game's metrics. Can be called at any time, including while the game is running.
+    public GameMetrics getMetrics() {
+        long win = winNanos;
+        long stopped = stoppedNanos;
+        long winToStop = (win != 0 && stopped != 0) ? stopped - win : -1;
+        return new GameMetrics(getWinnerId(), players, decks, winToStop);
+    }
+
+    // Takes a consistent snapshot of every hand and deck without stopping the game, so it can be polled while the game runs.
+    // Each player publishes its hand at the end of every turn, and a deck holds the cards at a range of positions:
+    // from the number its right player has drawn up to the 4 dealt plus the number its left player has discarded.
+    // Hands and decks read that way hold every card exactly once as long as no player is seen to draw a card that its
+    // left player is not yet seen to discard, and no card in a range has been drawn by the time it is copied.
+    // Where either fails, only the player seen too early is read again, until both hold for every deck.
+    // Reading a hand never blocks its player, and a ring buffer deck is copied without a lock. Must not be called during reset.
+    public GameSnapshot snapshot() {
+        HandView.Copy[] views = new HandView.Copy[numPlayers];
+        // Read from the last player back, so each deck's drawing player is read before its discarding player and only
+        // the first deck can start out with a player seen too early.
+        for (int i = numPlayers - 1; i >= 0; i--) {
+            views[i] = players.get(i).readView();
+        }
+        int[][] deckValues = new int[numPlayers][];
+        // The decks still to copy, as a stack with the last deck on top. Reading a player again puts its other deck back
+        // on the stack, so a player read again is checked against its neighbour straight away.
+        int[] pending = new int[numPlayers];
+        int pendingCount = 0;
+        for (int deck = 0; deck < numPlayers; deck++) {
+            pending[pendingCount++] = deck;
+        }
+        int rereads = 0;
+        int failures = 0; // Number of times in a row a player read again had not finished its turn.
+        while (pendingCount > 0) {
+            int deck = pending[pendingCount - 1];
+            int drawing = deck;                                    // The player whose left deck it is.
+            int discarding = (deck + numPlayers - 1) % numPlayers; // The player whose right deck it is.
+            long from = views[drawing].turns;
+            long to = 4 + views[discarding].turns;
+            int[] values = from > to ? null : new int[(int) (to - from)];
+            if (values != null && decks.get(deck).copyRange(from, to, values)) {
+                deckValues[deck] = values;
+                pendingCount--;
+                continue;
+            }
+            // Either a card drawn is still in the discarding player's hand as seen, or the drawing player has drawn
+            // a card since it was read. The player seen too early is read again, and the deck tried again.
+            int reread = values == null ? discarding : drawing;
+            int changedDeck = values == null ? discarding : (drawing + 1) % numPlayers; // Its other deck.
+            long seenTurns = views[reread].turns;
+            views[reread] = players.get(reread).readView();
+            rereads++;
+            if (deckValues[changedDeck] != null) {
+                deckValues[changedDeck] = null;
+                pending[pendingCount++] = changedDeck;
+            }
+            if (views[reread].turns == seenTurns) {
+                HandView.backOff(failures++); // The player is part way through a turn, so gives it time to finish.
+            } else {
+                failures = 0;
+            }
+        }
+
+        int[][] hands = new int[numPlayers][];
+        long[] turns = new long[numPlayers];
+        for (int i = 0; i < numPlayers; i++) {
+            hands[i] = views[i].values;
+            turns[i] = views[i].turns;
+        }
+        return new GameSnapshot(hands, deckValues, turns, rereads);
+    }
+
+    // Registers the game's metrics with the platform MBean server, so they can be watched over JMX while the game runs.
+    // Returns the name they are registered under. They stay registered until unregisterMetrics is called.
+    public ObjectName registerMetrics() throws JMException {
+        if (metricsName == null) {
+            ObjectName name = new ObjectName("org.game:type=CardGame,name=game-" + gameId);
+            ManagementFactory.getPlatformMBeanServer().registerMBean(new LiveMetrics(this), name);
+            metricsName = name;
+        }
+        return metricsName;
+    }
+
+    // Removes the game's metrics from the platform MBean server, if they are registered.
+    public void unregisterMetrics() throws JMException {
+        if (metricsName != null) {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(metricsName);
+            metricsName = null;
+        }
+    }
+
+    // The game's metrics as registered in JMX. A JMX client reads each attribute with its own call, so one refresh
+    // of every attribute shares one snapshot: a snapshot is only taken again once the last one is MAX_AGE_NANOS old.
+    private static class LiveMetrics implements GameMetricsMXBean {
+        private static final long MAX_AGE_NANOS = 100_000_000L; // Shorter than any JConsole or VisualVM refresh.
+
+        private final CardGame game;
+        private volatile GameMetrics last;     // The last snapshot, or null before the first call.
+        private volatile long lastNanos;       // When it was taken, from System.nanoTime.
+
+        LiveMetrics(CardGame game) {
+            this.game = game;
+        }
+
+        // Gets the last snapshot if it is recent, otherwise takes a new one.
+        private GameMetrics current() {
+            GameMetrics metrics = last;
+            long now = System.nanoTime();
+            if (metrics == null || now - lastNanos > MAX_AGE_NANOS) {
+                metrics = game.getMetrics();
+                lastNanos = now;
+                last = metrics;
+            }
+            return metrics;
+        }
+
+        public Integer getWinnerId() { return current().getWinnerId(); }
+        public long[] getTurns() { return current().getTurns(); }
+        public double[] getTurnsPerSecond() { return current().getTurnsPerSecond(); }
+        public long[] getEmptyDraws() { return current().getEmptyDraws(); }
+        public int[] getDeckDepths() { return current().getDeckDepths(); }
+        public long[] getDeckContention() { return current().getDeckContention(); }
+        public long getTimedTurns() { return current().getTimedTurns(); }
+        public double getMeanTurnNanos() { return current().getMeanTurnNanos(); }
+        public long getMedianTurnNanos() { return current().getMedianTurnNanos(); }
+        public long getP99TurnNanos() { return current().getP99TurnNanos(); }
+        public long getMaxTurnNanos() { return current().getMaxTurnNanos(); }
+        public long getWinToStopNanos() { return current().getWinToStopNanos(); }
+    }
+
     // Custom exception for invalid file input.
-    static class InvalidFileException extends Exception {
+    // Extends IOException so it can be thrown while a pack file is being read.
+    static class InvalidFileException extends IOException {
         public InvalidFileException(String message) {
             super(message);
         }
@@ -199,6 +854,7 @@ public class CardGame {
         }
 
         String packFilePath = "";
+        CardGame game = null; // The game, created once a valid pack has been given.
         validInput = false;
 
         inputsFromUser.nextLine();
@@ -220,17 +876,13 @@ public class CardGame {
                 // Check if the file path ends with ".txt" to ensure it's a text file
                 if (packFilePath.endsWith(".txt")) {
                     try {
-                        // Attempt to count the number of lines in the file to validate its size
-                        long lineCount = Files.lines(Paths.get(packFilePath)).count();
-
-                        // Verify if the file contains the correct number of lines (8 * number of players)
-                        if (lineCount != 8 * numPlayers) {
-                            // If the line count is not valid, notify the user about the expected number of cards
-                            System.out.println("Invalid pack size. Expected " + (8 * numPlayers) + " cards.");
-                        } else {
-                            // If the pack size is valid, set validInput to true to exit the loop
-                            validInput = true;
-                        }
+                        // Reads the pack once, checking it has 8 valid cards per player, and deals it to a new game.
+                        game = new CardGame(numPlayers, packFilePath);
+                        // If the pack is valid, set validInput to true to exit the loop
+                        validInput = true;
+                    } catch (InvalidFileException e) {
+                        // If the pack is not valid (e.g. the wrong number of cards), tell the user what is wrong
+                        System.out.println(e.getMessage());
                     } catch (IOException e) {
                         // Handle any I/O errors (e.g., file not found or inaccessible)
                         System.out.println("An error occurred while reading the file: " + e.getMessage());
@@ -244,13 +896,8 @@ public class CardGame {
 
         inputsFromUser.close(); //Close the input scanner.
 
-        // Starts the card game
-        try {
-            CardGame game = new CardGame(numPlayers, packFilePath); // Initializing the CardGame class
-            game.startGame();
-            System.out.println("Thank you! Your files are ready.");
-        } catch (IOException e) {
-            System.out.println("An unexpected error occurred while starting the game. Please check the input file and try again: " + e.getMessage());
-        }
+        // Starts the card game, and lets the user know once the game is over and the files have been written.
+        game.startGame();
+        game.getOutputFuture().thenRun(() -> System.out.println("Thank you! Your files are ready."));
     }
 }
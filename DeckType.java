@@ -0,0 +1,23 @@
+package org.game;
+
+// The deck implementations a CardGame can be built with.
+public enum DeckType {
+    // The original deck: a linked list queue behind a lock. Unbounded.
+    LOCKED {
+        @Override
+        CardDeck createDeck(int numPlayers) {
+            return new CardDeck();
+        }
+    },
+    // A lock-free single-producer/single-consumer ring buffer. Fixed capacity, no allocation per card.
+    RING_BUFFER {
+        @Override
+        CardDeck createDeck(int numPlayers) {
+            // A deck can never hold more than the 4 cards per player that are outside the hands.
+            return new RingBufferCardDeck(Math.min(RingBufferCardDeck.DEFAULT_CAPACITY, 4 * numPlayers));
+        }
+    };
+
+    // Creates one deck of this type for a game with the given number of players.
+    abstract CardDeck createDeck(int numPlayers);
+}
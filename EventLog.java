@@ -0,0 +1,151 @@
+package org.game;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+// A compact binary record of everything that happens in a game, written to a single append-only file.
+// Every record is 16 bytes: four big-endian ints holding the event type, the player (or deck) number, the card value
+// and one extra value that depends on the type. The first record is a header, then the deal, then the game itself.
+// GameReplay reads the file back to rebuild the hands and decks at any point, or to write the usual text files.
+//
+// Records from different players share one buffer, guarded by a lock. Each player records a discard before the card
+// reaches the next deck, and a draw after the card has left its deck, so a deck's records are always in the order
+// its cards really moved, whichever thread wrote first.
+public final class EventLog {
+    // Size of one record in bytes.
+    public static final int RECORD_BYTES = 16;
+
+    // The first int of the header record ("CGEV"), and the format version in the second.
+    public static final int MAGIC = 0x43474556;
+    public static final int VERSION = 1;
+
+    // Size of the buffer records are collected in before they are written to the file.
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    // The kinds of event. The code is what is stored in the file, so existing codes must never change.
+    public enum Type {
+        DEAL_HAND(1),   // A card dealt to a player's hand. Number: player ID.
+        DEAL_DECK(2),   // A card dealt to a deck. Number: deck number.
+        DRAW(3),        // A player draws a card from its left deck. Number: player ID.
+        DISCARD(4),     // A player discards a card to its right deck. Number: player ID. Extra: the card's position in the hand.
+        WIN(5),         // A player wins. Number: player ID.
+        EXIT(6);        // A losing player exits. Number: player ID. Extra: the winner's ID.
+
+        private final int code;
+
+        Type(int code) {
+            this.code = code;
+        }
+
+        public int getCode() {
+            return code;
+        }
+
+        // Gets the type stored with the given code, or null if there is none.
+        public static Type fromCode(int code) {
+            for (Type type : values()) {
+                if (type.code == code) {
+                    return type;
+                }
+            }
+            return null;
+        }
+    }
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+    // Guards the buffer and the channel.
+    private final ReentrantLock lock = new ReentrantLock();
+    private boolean closed;
+
+    // Creates the file, replacing any earlier one, and writes the header for a game with the given number of players.
+    EventLog(String fileName, int numPlayers) throws IOException {
+        channel = FileChannel.open(Paths.get(fileName), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        record(MAGIC, VERSION, numPlayers, 0);
+    }
+
+    // Records the cards dealt to the players' hands and the decks, before the game starts.
+    void recordDeal(List<Player> players, List<CardDeck> decks) {
+        for (Player player : players) {
+            for (Card card : player.getHand()) {
+                record(Type.DEAL_HAND.code, player.getPlayerId(), card.getValue(), 0);
+            }
+        }
+        for (int i = 0; i < decks.size(); i++) {
+            for (Card card : decks.get(i).toList()) {
+                record(Type.DEAL_DECK.code, i + 1, card.getValue(), 0);
+            }
+        }
+    }
+
+    // Records a card drawn by a player. Must be called after the card has been taken from the deck.
+    void draw(int playerId, int value) {
+        record(Type.DRAW.code, playerId, value, 0);
+    }
+
+    // Records a card discarded by a player from the given position in its hand. Must be called before the card is added to the deck.
+    void discard(int playerId, int value, int handIndex) {
+        record(Type.DISCARD.code, playerId, value, handIndex);
+    }
+
+    void win(int playerId) {
+        record(Type.WIN.code, playerId, 0, 0);
+    }
+
+    void exit(int playerId, int winnerId) {
+        record(Type.EXIT.code, playerId, 0, winnerId);
+    }
+
+    // Adds one record to the buffer, writing the buffer to the file first if it is full.
+    private void record(int type, int number, int value, int extra) {
+        lock.lock();
+        try {
+            if (closed) {
+                return; // Nothing more is recorded once the file has been closed.
+            }
+            if (buffer.remaining() < RECORD_BYTES) {
+                writeBuffer();
+            }
+            buffer.putInt(type).putInt(number).putInt(value).putInt(extra);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Writes everything in the buffer to the file. Must be called holding the lock.
+    private void writeBuffer() {
+        buffer.flip();
+        try {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        } catch (IOException e) {
+            e.printStackTrace(); // Prints an error if logging fails.
+        }
+        buffer.clear();
+    }
+
+    // Writes the remaining records and closes the file. Anything recorded afterwards is ignored.
+    void close() {
+        lock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            writeBuffer();
+            channel.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package org.game;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// The ways a CardGame can run its players. In the threaded modes every player is a Runnable task that plays until
+// the game is won, so the mode only decides which threads run those tasks.
+public enum ExecutionMode {
+    // One new platform thread per player, as the game has always done.
+    DEDICATED_THREADS,
+    // The players run on a pool of platform threads, one per player, or on the pool passed to CardGame.setExecutor.
+    PLATFORM_POOL,
+    // One virtual thread per player. Parking on an empty deck frees the carrier thread, so a table can host far more players.
+    VIRTUAL_THREADS,
+    // No player threads. The game is played on the thread that starts it, in rounds where every player takes one turn
+    // in order of ID. With a seed the same pack always gives the same winner and the same output files.
+    ROUND_BASED;
+
+    // Creates the executor used to run the players of one game with this mode.
+    ExecutorService createExecutor(int numPlayers) {
+        switch (this) {
+            case PLATFORM_POOL:
+                return Executors.newFixedThreadPool(numPlayers);
+            case VIRTUAL_THREADS:
+                return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("player-", 1).factory());
+            case ROUND_BASED:
+                throw new IllegalStateException("A round-based game runs on the thread that starts it");
+            default:
+                return Executors.newThreadPerTaskExecutor(Thread.ofPlatform().name("player-", 1).factory());
+        }
+    }
+}
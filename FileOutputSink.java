@@ -0,0 +1,93 @@
+package org.game;
+
+import java.nio.file.Paths;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Writes each output to a file of the same name in a directory. This is where a game's output goes by default.
+// While a game is running the text is queued to a GameLogger, which writes it on a background thread. Before and after,
+// the text is written straight to the file. Games running side by side each need their own directory.
+public class FileOutputSink implements OutputSink {
+    private final String directory;
+    private final boolean compressed;
+
+    // Guards the logger while it is started and stopped.
+    private final ReentrantLock lock = new ReentrantLock();
+    private volatile GameLogger logger; // Writes the files in the background while a game is running, otherwise null.
+
+    // Creates a sink writing to the given directory.
+    public FileOutputSink(String directory) {
+        this(directory, false);
+    }
+
+    // Creates a sink writing to the given directory, gzip compressing every file if asked to.
+    FileOutputSink(String directory, boolean compressed) {
+        if (directory == null) {
+            throw new NullPointerException("Directory can not be null");
+        }
+        this.directory = directory;
+        this.compressed = compressed;
+    }
+
+    // Creates a sink writing to the current working directory.
+    public static FileOutputSink workingDirectory() {
+        return new FileOutputSink(System.getProperty("user.dir"));
+    }
+
+    public String getDirectory() {
+        return directory;
+    }
+
+    // Gets the path of the file holding the named output.
+    public String getFileName(String name) {
+        return Paths.get(directory, compressed ? name + ".gz" : name).toString();
+    }
+
+    @Override
+    public void append(String name, String text) {
+        write(name, text, true);
+    }
+
+    @Override
+    public void replace(String name, String text) {
+        write(name, text, false);
+    }
+
+    private void write(String name, String text, boolean append) {
+        GameLogger currentLogger = logger;
+        if (currentLogger == null) {
+            GameLogger.writeNow(getFileName(name), text, append, compressed);
+        } else if (append) {
+            currentLogger.log(getFileName(name), text);
+        } else {
+            currentLogger.replace(getFileName(name), text);
+        }
+    }
+
+    // Starts a background writer for the game. Does nothing if one is already running.
+    @Override
+    public void open() {
+        lock.lock();
+        try {
+            if (logger == null) {
+                logger = new GameLogger(compressed);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Stops the background writer without waiting. The future completes once every file is written and closed.
+    @Override
+    public CompletableFuture<Void> close() {
+        GameLogger currentLogger;
+        lock.lock();
+        try {
+            currentLogger = logger;
+            logger = null; // Anything written from now on goes straight to the file.
+        } finally {
+            lock.unlock();
+        }
+        return currentLogger == null ? CompletableFuture.completedFuture(null) : currentLogger.closeAsync();
+    }
+}
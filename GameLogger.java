@@ -0,0 +1,252 @@
+package org.game;
+
+import java.io.BufferedWriter;
+import java.io.FileOutputStream;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.util.ArrayDeque;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.GZIPOutputStream;
+
+// Writes the player and deck output files on a background thread.
+// Players only queue their lines, the writer thread takes everything queued so far in one go and writes it through
+// buffered writers that stay open for the whole game. The text written is exactly what logAction used to write.
+public class GameLogger {
+    // Size of the buffer kept for each open output file.
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    // Most output files kept open at once. Large tables have more players than the process may have open files.
+    private static final int MAX_OPEN_FILES = 256;
+
+    // A single piece of text for one output file.
+    private static final class Entry {
+        private final String fileName; // The file the text belongs to.
+        private final String text;     // The text, including its line endings.
+        private final boolean append;  // False if the text replaces the current contents of the file.
+
+        private Entry(String fileName, String text, boolean append) {
+            this.fileName = fileName;
+            this.text = text;
+            this.append = append;
+        }
+    }
+
+    // Guards the pending queue and the closed flag.
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+
+    // Entries waiting to be written. Swapped with the writer's batch so a whole batch moves without copying.
+    private ArrayDeque<Entry> pending = new ArrayDeque<>();
+    private ArrayDeque<Entry> batch = new ArrayDeque<>();
+    private boolean closed;
+
+    // The output files the writer has open, least recently used first. Only used by the writer thread.
+    // When there are too many, the oldest is flushed and closed, it is opened again in append mode if it is needed later.
+    private final Map<String, Writer> openFiles = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Writer> eldest) {
+            if (size() <= MAX_OPEN_FILES) {
+                return false;
+            }
+            closeQuietly(eldest.getValue());
+            dirty.remove(eldest.getValue());
+            return true;
+        }
+    };
+
+    // The writers written to since the last flush. Only used by the writer thread.
+    private final Set<Writer> dirty = new HashSet<>();
+
+    private final boolean compressed; // True if every file is written gzip compressed.
+    private final Thread writerThread;
+    private final CompletableFuture<Void> finished = new CompletableFuture<>(); // Completed once every file is closed.
+
+    // Creates the logger and starts its writer thread.
+    public GameLogger() {
+        this(false);
+    }
+
+    // Creates the logger and starts its writer thread, gzip compressing every file if asked to.
+    GameLogger(boolean compressed) {
+        this.compressed = compressed;
+        writerThread = new Thread(this::writeLoop, "game-logger");
+        writerThread.start();
+    }
+
+    // Queues text to be added to the end of a file. Once the logger is closed the text is written straight away instead.
+    public void log(String fileName, String text) {
+        enqueue(new Entry(fileName, text, true));
+    }
+
+    // Queues text that replaces the contents of a file, e.g. the final contents of a deck.
+    public void replace(String fileName, String text) {
+        enqueue(new Entry(fileName, text, false));
+    }
+
+    private void enqueue(Entry entry) {
+        lock.lock();
+        try {
+            if (!closed) {
+                pending.add(entry);
+                notEmpty.signal(); // Wakes the writer if it is waiting for work.
+                return;
+            }
+        } finally {
+            lock.unlock();
+        }
+        // The game has already been flushed, e.g. a losing player finishing its last turn. Written directly so nothing is lost.
+        writeNow(entry.fileName, entry.text, entry.append, compressed);
+    }
+
+    // Writes everything queued so far, closes the output files and stops the writer thread.
+    // Waits until all of it is on disk. Calling it again does nothing.
+    public void close() {
+        closeAsync();
+        if (Thread.currentThread() == writerThread) {
+            return;
+        }
+        try {
+            writerThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt(); // Keeps the interrupt for the caller, the writer still finishes on its own.
+        }
+    }
+
+    // Closes the logger like close, but without waiting. Returns a future completed on the writer thread once
+    // everything queued so far is on disk and the files are closed.
+    public CompletableFuture<Void> closeAsync() {
+        lock.lock();
+        try {
+            closed = true;
+            notEmpty.signal();
+        } finally {
+            lock.unlock();
+        }
+        return finished;
+    }
+
+    // The writer thread: takes every queued entry at once, writes them, and flushes the files it touched.
+    private void writeLoop() {
+        try {
+            writeBatches();
+        } finally {
+            finished.complete(null);
+        }
+    }
+
+    // Writes each batch of queued entries until the logger is closed and everything has been written.
+    private void writeBatches() {
+        while (true) {
+            boolean finished;
+            lock.lock();
+            try {
+                while (pending.isEmpty() && !closed) {
+                    notEmpty.awaitUninterruptibly();
+                }
+                ArrayDeque<Entry> full = pending; // Swaps the queues, so players keep adding while the batch is written.
+                pending = batch;
+                batch = full;
+                finished = closed;
+            } finally {
+                lock.unlock();
+            }
+
+            Entry entry;
+            while ((entry = batch.poll()) != null) {
+                write(entry);
+            }
+            flushAll();
+
+            if (finished) {
+                closeAll();
+                return;
+            }
+        }
+    }
+
+    // Writes one entry to its file, opening the file if needed.
+    private void write(Entry entry) {
+        try {
+            Writer writer = openFiles.get(entry.fileName);
+            if (writer == null || !entry.append) {
+                if (writer != null) {
+                    openFiles.remove(entry.fileName);
+                    dirty.remove(writer);
+                    writer.close(); // Replacing the contents, so the file is opened again without append.
+                }
+                writer = new BufferedWriter(openWriter(entry.fileName, entry.append, compressed), BUFFER_SIZE);
+                openFiles.put(entry.fileName, writer);
+            }
+            writer.write(entry.text);
+            dirty.add(writer);
+        } catch (IOException e) {
+            e.printStackTrace(); // Prints an error if logging fails.
+        }
+    }
+
+    // Flushes every file written to in the last batch.
+    private void flushAll() {
+        for (Writer writer : dirty) {
+            try {
+                writer.flush();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+        dirty.clear();
+    }
+
+    // Closes every open output file.
+    private void closeAll() {
+        for (Writer writer : openFiles.values()) {
+            closeQuietly(writer);
+        }
+        openFiles.clear();
+        dirty.clear();
+    }
+
+    private static void closeQuietly(Writer writer) {
+        try {
+            writer.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    // Writes text to a file straight away, opening and closing the file. Used when there is no running logger.
+    public static void writeNow(String fileName, String text, boolean append) {
+        writeNow(fileName, text, append, false);
+    }
+
+    // Writes text to a file straight away, gzip compressed if asked to.
+    static void writeNow(String fileName, String text, boolean append, boolean compressed) {
+        try (Writer writer = openWriter(fileName, append, compressed)) {
+            writer.write(text);
+        } catch (IOException e) {
+            e.printStackTrace(); // Prints an error if logging fails.
+        }
+    }
+
+    // Opens a file for writing text. Appending to a compressed file adds a new gzip member, which reads as the same file.
+    private static Writer openWriter(String fileName, boolean append, boolean compressed) throws IOException {
+        if (!compressed) {
+            return new FileWriter(fileName, append);
+        }
+        FileOutputStream file = new FileOutputStream(fileName, append);
+        try {
+            return new OutputStreamWriter(new GZIPOutputStream(file, BUFFER_SIZE), Charset.defaultCharset()); // Same charset as FileWriter.
+        } catch (IOException e) {
+            file.close();
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package org.game;
+
+import java.util.Arrays;
+import java.util.List;
+
+// A snapshot of a game's metrics, taken by CardGame.getMetrics at any point in the game.
+// Each value is read once from the players' and decks' own counters, so taking a snapshot never stops the game.
+// Values from different counters may be a few turns apart in a running game, and are exact once every player has stopped.
+public class GameMetrics implements GameMetricsMXBean {
+    private final Integer winnerId;
+    private final long[] turns;              // Indexed by player ID - 1, like the other player arrays.
+    private final double[] turnsPerSecond;
+    private final long[] emptyDraws;
+    private final long[] idleNanos;
+    private final int[] deckDepths;          // Indexed by deck number - 1, like the other deck array.
+    private final long[] deckContention;
+    private final long[] turnBuckets = new long[LatencyHistogram.BUCKETS]; // Every player's turn durations merged.
+    private final long timedTurns;
+    private final long totalTurnNanos;
+    private final long maxTurnNanos;
+    private final long winToStopNanos;
+
+    // Reads the counters of the given players and decks.
+    GameMetrics(Integer winnerId, List<Player> players, List<CardDeck> decks, long winToStopNanos) {
+        this.winnerId = winnerId;
+        this.winToStopNanos = winToStopNanos;
+        int numPlayers = players.size();
+        turns = new long[numPlayers];
+        turnsPerSecond = new double[numPlayers];
+        emptyDraws = new long[numPlayers];
+        idleNanos = new long[numPlayers];
+        long total = 0;
+        long max = 0;
+        for (int i = 0; i < numPlayers; i++) {
+            Player player = players.get(i);
+            turns[i] = player.getTurns();
+            turnsPerSecond[i] = player.getTurnsPerSecond();
+            emptyDraws[i] = player.getEmptyDraws();
+            idleNanos[i] = player.getIdleNanos();
+            LatencyHistogram histogram = player.getTurnLatency();
+            if (histogram != null) {
+                histogram.addTo(turnBuckets);
+                total += histogram.getTotalNanos();
+                max = Math.max(max, histogram.getMaxNanos());
+            }
+        }
+        totalTurnNanos = total;
+        maxTurnNanos = max;
+        long count = 0;
+        for (long bucketCount : turnBuckets) {
+            count += bucketCount;
+        }
+        timedTurns = count;
+        deckDepths = new int[decks.size()];
+        deckContention = new long[decks.size()];
+        for (int i = 0; i < decks.size(); i++) {
+            deckDepths[i] = decks.get(i).size();
+            deckContention[i] = decks.get(i).getContention();
+        }
+    }
+
+    @Override
+    public Integer getWinnerId() {
+        return winnerId;
+    }
+
+    @Override
+    public long[] getTurns() {
+        return turns.clone();
+    }
+
+    // Gets the total turns of every player.
+    public long getTotalTurns() {
+        long total = 0;
+        for (long playerTurns : turns) {
+            total += playerTurns;
+        }
+        return total;
+    }
+
+    @Override
+    public double[] getTurnsPerSecond() {
+        return turnsPerSecond.clone();
+    }
+
+    @Override
+    public long[] getEmptyDraws() {
+        return emptyDraws.clone();
+    }
+
+    // Gets the time each player spent waiting for a card, in nanoseconds.
+    public long[] getIdleNanos() {
+        return idleNanos.clone();
+    }
+
+    @Override
+    public int[] getDeckDepths() {
+        return deckDepths.clone();
+    }
+
+    @Override
+    public long[] getDeckContention() {
+        return deckContention.clone();
+    }
+
+    @Override
+    public long getTimedTurns() {
+        return timedTurns;
+    }
+
+    @Override
+    public double getMeanTurnNanos() {
+        return timedTurns == 0 ? 0 : (double) totalTurnNanos / timedTurns;
+    }
+
+    @Override
+    public long getMedianTurnNanos() {
+        return LatencyHistogram.percentile(turnBuckets, 0.5);
+    }
+
+    @Override
+    public long getP99TurnNanos() {
+        return LatencyHistogram.percentile(turnBuckets, 0.99);
+    }
+
+    @Override
+    public long getMaxTurnNanos() {
+        return maxTurnNanos;
+    }
+
+    @Override
+    public long getWinToStopNanos() {
+        return winToStopNanos;
+    }
+
+    // Returns a summary of the metrics, in the same style as the batch results.
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        builder.append("winner: ").append(winnerId == null ? "none yet" : "player " + winnerId).append('\n');
+        for (int i = 0; i < turns.length; i++) {
+            builder.append("player ").append(i + 1).append(": turns ").append(turns[i])
+                    .append(", turns per second ").append(String.format("%.1f", turnsPerSecond[i]))
+                    .append(", empty draws ").append(emptyDraws[i]).append('\n');
+        }
+        builder.append("deck depths: ").append(Arrays.toString(deckDepths)).append('\n');
+        builder.append("deck contention: ").append(Arrays.toString(deckContention)).append('\n');
+        if (timedTurns > 0) {
+            builder.append("turn time: mean ").append(String.format("%.0f", getMeanTurnNanos()))
+                    .append("ns, median <= ").append(getMedianTurnNanos())
+                    .append("ns, p99 <= ").append(getP99TurnNanos())
+                    .append("ns, max ").append(maxTurnNanos).append("ns\n");
+        }
+        if (winToStopNanos >= 0) {
+            builder.append("win to stop: ").append(winToStopNanos).append("ns\n");
+        }
+        return builder.toString();
+    }
+}
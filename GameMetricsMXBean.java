@@ -0,0 +1,37 @@
+package org.game;
+
+// The metrics of a game as seen through JMX, e.g. in JConsole or VisualVM.
+// Arrays are indexed by player ID - 1, or by deck number - 1 for the decks.
+// A registered game answers calls from a snapshot that is reused for up to 100 ms, so all the attributes of one refresh
+// come from the same moment while the values still follow the game as it runs.
+public interface GameMetricsMXBean {
+    // The winner's ID, or null while the game is still running.
+    Integer getWinnerId();
+
+    long[] getTurns();
+
+    double[] getTurnsPerSecond();
+
+    // Number of times each player found its left deck empty when it went to draw.
+    long[] getEmptyDraws();
+
+    int[] getDeckDepths();
+
+    // Number of times each deck made a player wait for the other thread using it (lock waits, or index reads for ring decks).
+    long[] getDeckContention();
+
+    // Number of turns timed. 0 unless turn timing is on.
+    long getTimedTurns();
+
+    double getMeanTurnNanos();
+
+    // Upper bounds of the power of two buckets holding the median and 99th percentile turn.
+    long getMedianTurnNanos();
+
+    long getP99TurnNanos();
+
+    long getMaxTurnNanos();
+
+    // Time from the winning hand to the last player stopping, or -1 until every player has stopped.
+    long getWinToStopNanos();
+}
@@ -0,0 +1,296 @@
+package org.game;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+// Reads a game's binary event log (see EventLog) and replays it.
+// The players' hands and the decks can be rebuilt after any number of events, and the usual player and deck
+// text files can be written again from the log, exactly as the game would have written them.
+public class GameReplay {
+    private final int numPlayers;
+    private final List<List<Integer>> dealtHands = new ArrayList<>(); // Indexed by player ID - 1.
+    private final List<List<Integer>> dealtDecks = new ArrayList<>(); // Indexed by deck number - 1.
+
+    // The events after the deal, one entry per record in each array.
+    private final EventLog.Type[] types;
+    private final int[] numbers;
+    private final int[] values;
+    private final int[] extras;
+    private int eventCount;
+
+    private GameReplay(int numPlayers, int maxEvents) {
+        this.numPlayers = numPlayers;
+        for (int i = 0; i < numPlayers; i++) {
+            dealtHands.add(new ArrayList<>());
+            dealtDecks.add(new ArrayList<>());
+        }
+        types = new EventLog.Type[maxEvents];
+        numbers = new int[maxEvents];
+        values = new int[maxEvents];
+        extras = new int[maxEvents];
+    }
+
+    // Reads an event log. The whole game is replayed once to check the log is complete and consistent.
+    // Throws CardGame.InvalidFileException if the file is not an event log or its events do not fit the game.
+    public static GameReplay load(String fileName) throws IOException {
+        ByteBuffer data;
+        try (FileChannel channel = FileChannel.open(Paths.get(fileName), StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < EventLog.RECORD_BYTES || size % EventLog.RECORD_BYTES != 0 || size > Integer.MAX_VALUE) {
+                throw new CardGame.InvalidFileException("The file is not a game event log.");
+            }
+            data = ByteBuffer.allocate((int) size);
+            while (data.hasRemaining() && channel.read(data) >= 0) {
+                // Keeps reading until the buffer is full.
+            }
+            data.flip();
+        }
+        if (data.getInt() != EventLog.MAGIC) {
+            throw new CardGame.InvalidFileException("The file is not a game event log.");
+        }
+        int version = data.getInt();
+        if (version != EventLog.VERSION) {
+            throw new CardGame.InvalidFileException("Unsupported event log version " + version + ".");
+        }
+        int numPlayers = data.getInt();
+        data.getInt();
+        if (numPlayers < 1) {
+            throw new CardGame.InvalidFileException("Invalid number of players in the event log.");
+        }
+
+        GameReplay replay = new GameReplay(numPlayers, data.remaining() / EventLog.RECORD_BYTES);
+        while (data.hasRemaining()) {
+            int code = data.getInt();
+            int number = data.getInt();
+            int value = data.getInt();
+            int extra = data.getInt();
+            EventLog.Type type = EventLog.Type.fromCode(code);
+            if (type == null || number < 1 || number > numPlayers) {
+                throw invalidEvent(replay.eventCount, "unknown event");
+            }
+            if (type == EventLog.Type.DEAL_HAND) {
+                replay.dealtHands.get(number - 1).add(value);
+            } else if (type == EventLog.Type.DEAL_DECK) {
+                replay.dealtDecks.get(number - 1).add(value);
+            } else {
+                int index = replay.eventCount++;
+                replay.types[index] = type;
+                replay.numbers[index] = number;
+                replay.values[index] = value;
+                replay.extras[index] = extra;
+            }
+        }
+        replay.new Table().play(replay.eventCount, null); // Checks every event against the cards it moves.
+        return replay;
+    }
+
+    private static CardGame.InvalidFileException invalidEvent(int index, String problem) {
+        return new CardGame.InvalidFileException("Invalid event " + (index + 1) + " in the event log: " + problem + ".");
+    }
+
+    public int getNumPlayers() {
+        return numPlayers;
+    }
+
+    // Gets the number of events after the deal.
+    public int getEventCount() {
+        return eventCount;
+    }
+
+    // Gets the winner's ID, or null if the log has no win.
+    public Integer getWinnerId() {
+        for (int i = 0; i < eventCount; i++) {
+            if (types[i] == EventLog.Type.WIN) {
+                return numbers[i];
+            }
+        }
+        return null;
+    }
+
+    // Rebuilds the hands and decks after the first given number of events. 0 gives the deal.
+    public State stateAt(int events) {
+        if (events < 0 || events > eventCount) {
+            throw new IllegalArgumentException("Event count must be between 0 and " + eventCount);
+        }
+        Table table = new Table();
+        try {
+            table.play(events, null);
+        } catch (CardGame.InvalidFileException e) {
+            throw new IllegalStateException(e); // Not possible, the whole log was checked when it was loaded.
+        }
+        return table.toState();
+    }
+
+    // Rebuilds the hands and decks at the end of the game.
+    public State finalState() {
+        return stateAt(eventCount);
+    }
+
+    // Writes the player and deck output files to the given directory, with the same contents the game writes.
+    public void exportText(String directory) throws IOException {
+        StringBuilder[] playerText = new StringBuilder[numPlayers];
+        for (int i = 0; i < numPlayers; i++) {
+            playerText[i] = new StringBuilder();
+        }
+        Table table = new Table();
+        table.play(eventCount, playerText);
+        for (int i = 0; i < numPlayers; i++) {
+            Files.writeString(Paths.get(directory, "player" + (i + 1) + "_output.txt"), playerText[i]);
+        }
+        for (int i = 0; i < numPlayers; i++) {
+            Files.writeString(Paths.get(directory, "deck" + (i + 1) + "_output.txt"), table.decks.get(i).toString() + "\n");
+        }
+    }
+
+    // The hands and decks at one point in a replayed game.
+    public static class State {
+        private final List<List<Integer>> hands;
+        private final List<List<Integer>> decks;
+
+        private State(List<List<Integer>> hands, List<List<Integer>> decks) {
+            this.hands = hands;
+            this.decks = decks;
+        }
+
+        // Gets the card values in the player's hand, in the order they are held.
+        public List<Integer> getHand(int playerId) {
+            return new ArrayList<>(hands.get(playerId - 1));
+        }
+
+        // Gets the card values in the deck, from the top (next to be drawn) to the bottom.
+        public List<Integer> getDeck(int deckNumber) {
+            return new ArrayList<>(decks.get(deckNumber - 1));
+        }
+
+        // Returns one line per player and per deck.
+        @Override
+        public String toString() {
+            StringBuilder builder = new StringBuilder();
+            for (int i = 0; i < hands.size(); i++) {
+                builder.append("player ").append(i + 1).append(" hand: ").append(hands.get(i)).append('\n');
+            }
+            for (int i = 0; i < decks.size(); i++) {
+                builder.append("deck ").append(i + 1).append(": ").append(decks.get(i)).append('\n');
+            }
+            return builder.toString();
+        }
+    }
+
+    // The hands and decks while the events are being played.
+    private class Table {
+        private final List<List<Integer>> hands = new ArrayList<>();
+        private final List<ArrayDeque<Integer>> decks = new ArrayList<>();
+
+        private Table() {
+            for (int i = 0; i < numPlayers; i++) {
+                hands.add(new ArrayList<>(dealtHands.get(i)));
+                decks.add(new ArrayDeque<>(dealtDecks.get(i)));
+            }
+        }
+
+        // Plays the first given number of events. If playerText is not null, each player's output file is built
+        // alongside, in the format Player.logAction writes.
+        private void play(int events, StringBuilder[] playerText) throws CardGame.InvalidFileException {
+            if (playerText != null) {
+                for (int i = 0; i < numPlayers; i++) {
+                    playerText[i].append("player ").append(i + 1).append(" initial hand ").append(hands.get(i)).append("\n\n");
+                }
+            }
+            for (int i = 0; i < events; i++) {
+                int player = numbers[i];
+                int value = values[i];
+                List<Integer> hand = hands.get(player - 1);
+                StringBuilder text = playerText == null ? null : playerText[player - 1];
+                switch (types[i]) {
+                    case DRAW: {
+                        Integer drawn = decks.get(player - 1).poll(); // The player's left deck has the same number as the player.
+                        if (drawn == null || drawn != value) {
+                            throw invalidEvent(i, "player " + player + " draws a card that is not on top of deck " + player);
+                        }
+                        hand.add(value);
+                        if (text != null) {
+                            text.append("player ").append(player).append(" draws a ").append(value)
+                                    .append(" from deck ").append(player).append('\n');
+                        }
+                        break;
+                    }
+                    case DISCARD: {
+                        int index = extras[i];
+                        if (index < 0 || index >= hand.size() || hand.get(index) != value) {
+                            throw invalidEvent(i, "player " + player + " discards a card that is not in their hand");
+                        }
+                        hand.remove(index);
+                        decks.get(player % numPlayers).add(value); // The player's right deck.
+                        if (text != null) {
+                            // The deck number is written the way Player writes it, so the files match the game's.
+                            text.append("player ").append(player).append(" discards a ").append(value)
+                                    .append(" to deck ").append((player % 4) + 1).append('\n');
+                            text.append("player ").append(player).append(" current hand is ").append(hand).append("\n\n");
+                        }
+                        break;
+                    }
+                    case WIN:
+                        if (text != null) {
+                            text.append("player ").append(player).append(" wins\n");
+                            text.append("player ").append(player).append(" exits\n");
+                            text.append("player ").append(player).append(" final hand: ").append(hand).append("\n\n");
+                        }
+                        break;
+                    case EXIT:
+                        if (text != null) {
+                            int winnerId = extras[i];
+                            text.append("player ").append(winnerId).append(" has informed player ").append(player)
+                                    .append(" that player ").append(winnerId).append(" has won\n");
+                            text.append("player ").append(player).append(" exits\n");
+                            text.append("player ").append(player).append(" final hand: ").append(hand).append('\n');
+                        }
+                        break;
+                    default:
+                        throw invalidEvent(i, "a card is dealt after the game has started");
+                }
+            }
+        }
+
+        private State toState() {
+            List<List<Integer>> deckLists = new ArrayList<>();
+            for (ArrayDeque<Integer> deck : decks) {
+                deckLists.add(new ArrayList<>(deck));
+            }
+            return new State(hands, deckLists);
+        }
+    }
+
+    // Replays an event log from the command line:
+    // GameReplay <event log> [output directory]  writes the player and deck files (to the current directory by default)
+    // GameReplay <event log> --at <events>       prints the hands and decks after the given number of events
+    public static void main(String[] args) {
+        if (args.length < 1) {
+            System.out.println("Usage: GameReplay <event log> [output directory | --at <events>]");
+            return;
+        }
+        try {
+            GameReplay replay = load(args[0]);
+            if (args.length > 2 && args[1].equals("--at")) {
+                System.out.print(replay.stateAt(Integer.parseInt(args[2])));
+            } else {
+                String directory = args.length > 1 ? args[1] : System.getProperty("user.dir");
+                replay.exportText(directory);
+                System.out.println("Wrote the output files for " + replay.getNumPlayers() + " players to " + directory + File.separator);
+            }
+        } catch (CardGame.InvalidFileException e) {
+            System.out.println(e.getMessage());
+        } catch (IOException e) {
+            System.out.println("An error occurred while reading the file: " + e.getMessage());
+        } catch (IllegalArgumentException e) {
+            System.out.println("Invalid input: " + e.getMessage());
+        }
+    }
+}
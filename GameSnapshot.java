@@ -0,0 +1,67 @@
+package org.game;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// A consistent snapshot of every hand and deck in a game, taken by CardGame.snapshot at any point in the game.
+// Consistent means the game really could have been in this state: every card of the pack is in exactly one hand or deck,
+// even though the players kept playing while it was taken. Each player may be seen at a slightly different turn.
+public class GameSnapshot {
+    private final int[][] hands;   // Indexed by player ID - 1.
+    private final int[][] decks;   // Indexed by deck number - 1, each from the top (next to be drawn) to the bottom.
+    private final long[] turns;    // The turn each player was seen at.
+    private final int rereads;
+
+    GameSnapshot(int[][] hands, int[][] decks, long[] turns, int rereads) {
+        this.hands = hands;
+        this.decks = decks;
+        this.turns = turns;
+        this.rereads = rereads;
+    }
+
+    public int getNumPlayers() {
+        return hands.length;
+    }
+
+    // Gets the card values in the player's hand, in the order they are held.
+    public List<Integer> getHand(int playerId) {
+        return toList(hands[playerId - 1]);
+    }
+
+    // Gets the card values in the deck, from the top (next to be drawn) to the bottom.
+    public List<Integer> getDeck(int deckNumber) {
+        return toList(decks[deckNumber - 1]);
+    }
+
+    // Gets the number of turns each player had completed in the snapshot, indexed by player ID - 1.
+    public long[] getTurns() {
+        return turns.clone();
+    }
+
+    // Gets the number of times a player had moved on while the snapshot was being taken, so had to be read again.
+    // Stays at or near 0 unless the snapshot is polled very often on a game with few, fast players.
+    public int getRereads() {
+        return rereads;
+    }
+
+    private static List<Integer> toList(int[] values) {
+        List<Integer> list = new ArrayList<>(values.length);
+        for (int value : values) {
+            list.add(value);
+        }
+        return list;
+    }
+
+    // Returns one line per player and per deck, in the same format as GameReplay.State.
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < hands.length; i++) {
+            builder.append("player ").append(i + 1).append(" hand: ").append(getHand(i + 1)).append('\n');
+        }
+        for (int i = 0; i < decks.length; i++) {
+            builder.append("deck ").append(i + 1).append(": ").append(getDeck(i + 1)).append('\n');
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,10 @@
+package org.game;
+
+// Writes each output to a gzip compressed file in a directory, named after the output with .gz added,
+// e.g. player1_output.txt.gz. The logs of large games are very repetitive, so they shrink many times over.
+// An output that is added to after its file was closed gets a second gzip member, which gzip tools read as one file.
+public class GzipOutputSink extends FileOutputSink {
+    public GzipOutputSink(String directory) {
+        super(directory, true);
+    }
+}
@@ -0,0 +1,168 @@
+package org.game;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+// A player's hand of cards, kept in fixed arrays so that a turn allocates nothing.
+// Alongside the cards it keeps a small histogram of the values held, so checking for a win and choosing a card
+// that is not the preferred value do not need to scan or copy the hand.
+// Not thread-safe: a hand is only used by the thread running its player.
+public class Hand {
+    // A hand holds four cards between turns and five for a moment during a turn.
+    public static final int CAPACITY = 5;
+
+    // The cards in the order they were added, and their values.
+    private final Card[] cards = new Card[CAPACITY];
+    private final int[] values = new int[CAPACITY];
+    private int size;
+
+    // The histogram: each distinct value in the hand and how many cards have it.
+    private final int[] distinctValues = new int[CAPACITY];
+    private final int[] distinctCounts = new int[CAPACITY];
+    private int distinctSize;
+
+    // The value the owning player collects, and how many cards in the hand have it.
+    private final int preferredValue;
+    private int preferredCount;
+
+    // Constructs an empty hand for a player collecting the given value.
+    public Hand(int preferredValue) {
+        this.preferredValue = preferredValue;
+    }
+
+    // Adds a card to the end of the hand.
+    public void add(Card card) {
+        if (card == null) {
+            throw new NullPointerException("Card value can not be null");
+        }
+        if (size == CAPACITY) {
+            throw new IllegalStateException("Hand is full");
+        }
+        int value = card.getValue();
+        cards[size] = card;
+        values[size] = value;
+        size++;
+        if (value == preferredValue) {
+            preferredCount++;
+        }
+        for (int i = 0; i < distinctSize; i++) {
+            if (distinctValues[i] == value) {
+                distinctCounts[i]++;
+                return;
+            }
+        }
+        distinctValues[distinctSize] = value;
+        distinctCounts[distinctSize] = 1;
+        distinctSize++;
+    }
+
+    // Removes the card at the given position, keeping the order of the others, and returns it.
+    public Card removeAt(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " is not in the hand");
+        }
+        Card card = cards[index];
+        int value = values[index];
+        size--;
+        System.arraycopy(cards, index + 1, cards, index, size - index);
+        System.arraycopy(values, index + 1, values, index, size - index);
+        cards[size] = null;
+        if (value == preferredValue) {
+            preferredCount--;
+        }
+        for (int i = 0; i < distinctSize; i++) {
+            if (distinctValues[i] == value) {
+                if (--distinctCounts[i] == 0) {
+                    // The value has gone from the hand, so the last entry takes its place.
+                    distinctSize--;
+                    distinctValues[i] = distinctValues[distinctSize];
+                    distinctCounts[i] = distinctCounts[distinctSize];
+                }
+                break;
+            }
+        }
+        return card;
+    }
+
+    // Gets the card at the given position.
+    public Card get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " is not in the hand");
+        }
+        return cards[index];
+    }
+
+    // Gets the position of the given card in the hand, or -1 if it is not there.
+    public int indexOf(Card card) {
+        for (int i = 0; i < size; i++) {
+            if (cards[i].equals(card)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    // Gets the number of cards in the hand.
+    public int size() {
+        return size;
+    }
+
+    // Checks if the hand is a winning hand (it holds cards and they all have the same value).
+    public boolean isWinning() {
+        return distinctSize == 1;
+    }
+
+    // Chooses, uniformly at random, the position of a card that is not of the preferred value.
+    public int pickNonPreferred(SplittableRandom random) {
+        int nonPreferred = size - preferredCount;
+        if (nonPreferred == 0) {
+            throw new IllegalStateException("Every card in the hand is of the preferred value");
+        }
+        int skip = random.nextInt(nonPreferred); // Which of the non-preferred cards to take.
+        for (int i = 0; i < size; i++) {
+            if (values[i] != preferredValue && skip-- == 0) {
+                return i;
+            }
+        }
+        throw new IllegalStateException("Hand histogram is out of step with its cards");
+    }
+
+    // Removes every card from the hand.
+    public void clear() {
+        for (int i = 0; i < size; i++) {
+            cards[i] = null;
+        }
+        size = 0;
+        distinctSize = 0;
+        preferredCount = 0;
+    }
+
+    // Copies the values of the cards into the array, in the order they are held, and returns how many there are.
+    int copyValues(int[] into) {
+        System.arraycopy(values, 0, into, 0, size);
+        return size;
+    }
+
+    // Returns a copy of the cards as a list.
+    public List<Card> toList() {
+        List<Card> list = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            list.add(cards[i]);
+        }
+        return list;
+    }
+
+    // Returns a string representation of the hand, in the same format as a list of cards, e.g. [1, 2, 3, 4].
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder("[");
+        for (int i = 0; i < size; i++) {
+            if (i > 0) {
+                builder.append(", ");
+            }
+            builder.append(values[i]);
+        }
+        return builder.append(']').toString();
+    }
+}
@@ -0,0 +1,63 @@
+package org.game;
+
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+
+// The last published state of a player between turns: the values in its hand and the number of turns it had completed.
+// It has a single writer (the player that owns it), which publishes with a seqlock: the version is odd while the copy
+// is being written and even once it is done. A reader on any thread copies the state without a lock and tries again
+// if the version moved, so reading never makes the player wait. Publishing is a few plain stores and two ordered ones.
+class HandView {
+    private final AtomicLong version = new AtomicLong();
+    private final int[] values = new int[Hand.CAPACITY];
+    private int size;
+    private long turns;
+
+    // The state read from a view at one moment.
+    static final class Copy {
+        final int[] values;
+        final long turns; // Also the number of cards the player has drawn from its left deck, and discarded to its right.
+
+        private Copy(int[] values, long turns) {
+            this.values = values;
+            this.turns = turns;
+        }
+    }
+
+    // Publishes the hand and turn count. Must only be called by the single writer.
+    void publish(Hand hand, long turns) {
+        long current = version.get();
+        version.lazySet(current + 1);
+        VarHandle.storeStoreFence(); // The odd version is seen before any of the values change.
+        size = hand.copyValues(values);
+        this.turns = turns;
+        version.lazySet(current + 2); // Ordered after the values, so a reader that sees it sees them too.
+    }
+
+    // Reads a copy of the last state published, waiting with spins and then yields while a new one is being written.
+    Copy read() {
+        for (int attempt = 0; ; attempt++) {
+            long before = version.get();
+            if ((before & 1) == 0) {
+                int readSize = Math.min(size, Hand.CAPACITY);
+                long readTurns = turns;
+                int[] readValues = Arrays.copyOf(values, readSize);
+                VarHandle.acquireFence(); // The values are read before the version is checked again.
+                if (version.get() == before) {
+                    return new Copy(readValues, readTurns);
+                }
+            }
+            backOff(attempt); // The player is in the middle of publishing.
+        }
+    }
+
+    // Waits a little before a reader tries again: spins at first, then yields in case the player has been switched out.
+    static void backOff(int attempt) {
+        if (attempt < WaitStrategy.SPIN_LIMIT) {
+            Thread.onSpinWait();
+        } else {
+            Thread.yield();
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package org.game;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// A histogram of durations in nanoseconds with one bucket per power of two.
+// It has a single writer (the player that owns it), so recording is a plain read and an ordered store, with no CAS or lock.
+// Any thread can read it while it is being written, e.g. a JMX client watching a running game.
+class LatencyHistogram {
+    // Bucket i counts the durations below 2^i nanoseconds that did not fit in bucket i - 1. Bucket 0 holds durations of 0.
+    static final int BUCKETS = 64;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong total = new AtomicLong(); // Sum of every duration recorded.
+    private final AtomicLong max = new AtomicLong();   // Longest duration recorded.
+
+    // Adds one duration. Must only be called by the single writer.
+    void record(long nanos) {
+        if (nanos < 0) {
+            nanos = 0; // nanoTime never goes backwards on one thread, but a zero is safer than a negative bucket.
+        }
+        int bucket = Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(nanos));
+        counts.lazySet(bucket, counts.get(bucket) + 1);
+        total.lazySet(total.get() + nanos);
+        if (nanos > max.get()) {
+            max.lazySet(nanos);
+        }
+    }
+
+    // Empties the histogram. Must not be called while it is being written.
+    void clear() {
+        for (int i = 0; i < BUCKETS; i++) {
+            counts.set(i, 0);
+        }
+        total.set(0);
+        max.set(0);
+    }
+
+    // Adds this histogram's bucket counts to the given array, so several histograms can be merged.
+    void addTo(long[] bucketCounts) {
+        for (int i = 0; i < BUCKETS; i++) {
+            bucketCounts[i] += counts.get(i);
+        }
+    }
+
+    long getTotalNanos() {
+        return total.get();
+    }
+
+    long getMaxNanos() {
+        return max.get();
+    }
+
+    // Gets the upper bound of the bucket holding the given fraction (0 to 1) of the counted durations, or 0 if there are none.
+    static long percentile(long[] bucketCounts, double fraction) {
+        long count = 0;
+        for (long bucketCount : bucketCounts) {
+            count += bucketCount;
+        }
+        if (count == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(fraction * count);
+        long seen = 0;
+        for (int i = 0; i < bucketCounts.length; i++) {
+            seen += bucketCounts[i];
+            if (seen >= Math.max(1, rank)) {
+                return i == 0 ? 0 : (i >= 63 ? Long.MAX_VALUE : (1L << i) - 1);
+            }
+        }
+        return Long.MAX_VALUE;
+    }
+}
@@ -0,0 +1,107 @@
+package org.game;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Keeps the output in memory instead of files, e.g. for tests, or to watch the end of a long game without any disk I/O.
+// Each output is a ring buffer holding the most recent pieces of text written to it (usually one line each),
+// so a game that runs for millions of turns still only keeps a bounded amount.
+public class MemoryOutputSink implements OutputSink {
+    // Default number of pieces of text kept for each output.
+    public static final int DEFAULT_CAPACITY = 1024;
+
+    private final int capacity;
+    private final Map<String, Ring> outputs = new ConcurrentHashMap<>();
+
+    // The recent text of one output. Usually written by one player, but read by anyone.
+    private static final class Ring {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final ArrayDeque<String> texts = new ArrayDeque<>();
+        private long dropped; // Number of pieces of text pushed out of the ring.
+    }
+
+    // Creates a sink keeping the most recent DEFAULT_CAPACITY pieces of text for each output.
+    public MemoryOutputSink() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    // Creates a sink keeping the most recent given number of pieces of text for each output.
+    public MemoryOutputSink(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be a positive integer");
+        }
+        this.capacity = capacity;
+    }
+
+    @Override
+    public void append(String name, String text) {
+        Ring ring = outputs.computeIfAbsent(name, key -> new Ring());
+        ring.lock.lock();
+        try {
+            if (ring.texts.size() == capacity) {
+                ring.texts.removeFirst();
+                ring.dropped++;
+            }
+            ring.texts.addLast(text);
+        } finally {
+            ring.lock.unlock();
+        }
+    }
+
+    @Override
+    public void replace(String name, String text) {
+        Ring ring = outputs.computeIfAbsent(name, key -> new Ring());
+        ring.lock.lock();
+        try {
+            ring.texts.clear();
+            ring.dropped = 0;
+            if (!text.isEmpty()) {
+                ring.texts.addLast(text);
+            }
+        } finally {
+            ring.lock.unlock();
+        }
+    }
+
+    // Gets the text kept for the named output, oldest first, or an empty string if nothing was written to it.
+    public String getText(String name) {
+        Ring ring = outputs.get(name);
+        if (ring == null) {
+            return "";
+        }
+        ring.lock.lock();
+        try {
+            return String.join("", ring.texts);
+        } finally {
+            ring.lock.unlock();
+        }
+    }
+
+    // Gets the number of pieces of text pushed out of the named output's ring to make room for newer ones.
+    public long getDropped(String name) {
+        Ring ring = outputs.get(name);
+        if (ring == null) {
+            return 0;
+        }
+        ring.lock.lock();
+        try {
+            return ring.dropped;
+        } finally {
+            ring.lock.unlock();
+        }
+    }
+
+    // Gets the names of every output written to.
+    public List<String> getNames() {
+        return new ArrayList<>(outputs.keySet());
+    }
+
+    // Forgets every output.
+    public void clear() {
+        outputs.clear();
+    }
+}
@@ -0,0 +1,19 @@
+package org.game;
+
+// An output sink that throws everything away. A game given this sink skips building its output altogether,
+// so benchmarks and batch simulations pay nothing for it.
+public final class NullOutputSink implements OutputSink {
+    // The only instance. It has no state, so every game can share it.
+    public static final NullOutputSink INSTANCE = new NullOutputSink();
+
+    private NullOutputSink() {
+    }
+
+    @Override
+    public void append(String name, String text) {
+    }
+
+    @Override
+    public void replace(String name, String text) {
+    }
+}
@@ -0,0 +1,26 @@
+package org.game;
+
+import java.util.concurrent.CompletableFuture;
+
+// Where a game's text output goes: one named output for each player's log ("player1_output.txt") and each deck's
+// final contents ("deck1_output.txt"). The game writes to whichever sink it is given, so the same game can write files,
+// keep its output in memory, compress it or throw it away.
+// Players write to the sink from their own threads at the same time, so every sink must be thread-safe.
+// A game's sink should not be shared with another game running at the same time, as both write the same names.
+public interface OutputSink {
+    // Adds text to the end of the named output.
+    void append(String name, String text);
+
+    // Replaces the whole named output with the text, e.g. to clear a player's log before a game or write a deck's contents.
+    void replace(String name, String text);
+
+    // Called when a game starts writing to the sink. A sink that writes in the background starts doing so here.
+    default void open() {
+    }
+
+    // Called once the game is over. Returns a future that completes once everything the game wrote is in place.
+    // Anything written afterwards is still kept, and the sink can be opened again for the next game.
+    default CompletableFuture<Void> close() {
+        return CompletableFuture.completedFuture(null);
+    }
+}
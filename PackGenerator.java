@@ -0,0 +1,152 @@
+package org.game;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.util.SplittableRandom;
+
+// Generates valid packs of 8 cards per player from a seed, so large games need no pack file.
+// The same distribution, seed and number of players always give the same pack.
+// Every pack holds values 1 to n only, and at least four cards of some value, so its games can always be won.
+// Packs for large games are held off the heap in a direct IntBuffer (4 bytes per card) and dealt straight from it.
+public final class PackGenerator implements BatchSimulator.PackSource {
+    // How the card values are spread over the players.
+    public enum Distribution {
+        // Every value from 1 to n appears 8 times, in a random order. Every player is as likely to win as any other.
+        UNIFORM,
+        // Half the cards share the values of the first eighth of the players, the other half has 4 cards of every value.
+        // The low-numbered players start with far more of their own value and win much more often.
+        SKEWED,
+        // Every value appears 8 times, but each player's cards start far round the ring from it, spread out so that
+        // no player starts with its own value or sees the same value twice in a row. A player can only win once its
+        // cards have passed most of the ring, or by a rare chance, so games last many times longer than uniform ones.
+        // Below 16 players the ring is too small to spread the copies out, so each player's cards come from its nearest
+        // players instead: still none of its own value and never the same value twice in a row, but games are short.
+        // Needs at least 3 players, with fewer every hand dealt would hold four of a kind.
+        ADVERSARIAL
+    }
+
+    private final Distribution distribution;
+    private final long seed;
+
+    public PackGenerator(Distribution distribution, long seed) {
+        if (distribution == null) {
+            throw new NullPointerException("Distribution can not be null");
+        }
+        this.distribution = distribution;
+        this.seed = seed;
+    }
+
+    public Distribution getDistribution() {
+        return distribution;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    // Generates the pack for the given number of players into a new direct buffer, outside the Java heap.
+    // The buffer can be given to the CardGame constructor, and shared by any number of games.
+    public IntBuffer generate(int numPlayers) {
+        IntBuffer pack = ByteBuffer.allocateDirect(packSize(numPlayers) * Integer.BYTES).order(ByteOrder.nativeOrder()).asIntBuffer();
+        fill(pack, numPlayers, seed);
+        return pack;
+    }
+
+    // Generates the pack for one game of a batch as an array. Game i uses the seed plus i, so every game gets its own pack.
+    @Override
+    public int[] createPack(int numPlayers, long gameIndex) {
+        int[] pack = new int[packSize(numPlayers)];
+        fill(IntBuffer.wrap(pack), numPlayers, seed + gameIndex);
+        return pack;
+    }
+
+    // Gets the number of cards in a pack for the given number of players, checking the pack fits in a buffer.
+    private static int packSize(int numPlayers) {
+        if (numPlayers < 1 || numPlayers > Integer.MAX_VALUE / (8 * Integer.BYTES)) {
+            throw new IllegalArgumentException("Invalid number of players: " + numPlayers);
+        }
+        return 8 * numPlayers;
+    }
+
+    // Writes the 8n cards of the pack into the buffer, from index 0.
+    private void fill(IntBuffer pack, int numPlayers, long packSeed) {
+        SplittableRandom random = new SplittableRandom(packSeed);
+        switch (distribution) {
+            case UNIFORM:
+                for (int i = 0; i < 8 * numPlayers; i++) {
+                    pack.put(i, (i % numPlayers) + 1);
+                }
+                shuffle(pack, 8 * numPlayers, random);
+                break;
+            case SKEWED: {
+                int hotValues = Math.max(1, numPlayers / 8); // Each of these appears at least 32 times more.
+                for (int i = 0; i < 4 * numPlayers; i++) {
+                    pack.put(i, (i % hotValues) + 1);
+                }
+                for (int i = 4 * numPlayers; i < 8 * numPlayers; i++) {
+                    pack.put(i, (i % numPlayers) + 1);
+                }
+                shuffle(pack, 8 * numPlayers, random);
+                break;
+            }
+            case ADVERSARIAL: {
+                if (numPlayers < 3) {
+                    throw new IllegalArgumentException("An adversarial pack needs at least 3 players");
+                }
+                // Copy k of player q's value goes to player q + offsets[k], to its hand for the first 4 copies and
+                // to its left deck for the other 4. No offset is a whole turn of the ring, so no player gets its own
+                // value, and for each k every player gets a different value, so every value is dealt 8 times.
+                int[] offsets = adversarialOffsets(numPlayers);
+                for (int player = 0; player < numPlayers; player++) {
+                    int first = random.nextInt(4); // Deals the hand and the deck in a random order.
+                    for (int slot = 0; slot < 4; slot++) {
+                        int copy = (first + slot) % 4;
+                        // The first 4n cards go round the hands, so card i goes to player (i % n) + 1.
+                        pack.put(slot * numPlayers + player, Math.floorMod(player - offsets[copy], numPlayers) + 1);
+                        // The other 4n cards go round the decks, and deck d is player d's left deck.
+                        pack.put(4 * numPlayers + slot * numPlayers + player,
+                                Math.floorMod(player - offsets[copy + 4], numPlayers) + 1);
+                    }
+                }
+                break;
+            }
+        }
+    }
+
+    // Gets how far round the ring each of the 8 copies of a value is dealt from its player, for an adversarial pack.
+    private static int[] adversarialOffsets(int numPlayers) {
+        int[] offsets = new int[8];
+        int spacing = Math.max(2, numPlayers / 16); // Measured to give the longest games, from 64 to 2048 players.
+        if (1 + 7 * spacing < numPlayers) {
+            // Cards are passed on to the right, so the first copy has to pass every other player, and the copies of
+            // one value are never close enough to gather in one hand.
+            for (int copy = 0; copy < 8; copy++) {
+                offsets[copy] = 1 + copy * spacing;
+            }
+        } else if (numPlayers >= 5) {
+            // The nearest 4 players for the hand, then the next 4 for the deck (going round again if there are fewer).
+            for (int copy = 0; copy < 8; copy++) {
+                offsets[copy] = 1 + copy % (numPlayers - 1);
+            }
+        } else {
+            // With 3 or 4 players a hand must repeat a value. The repeats are two slots apart, so they stay apart
+            // however the slots are rotated.
+            int[] pattern = numPlayers == 3 ? new int[] {1, 2, 1, 2} : new int[] {1, 2, 1, 3};
+            for (int copy = 0; copy < 8; copy++) {
+                offsets[copy] = pattern[copy % 4];
+            }
+        }
+        return offsets;
+    }
+
+    // Shuffles the first given number of cards with a Fisher-Yates shuffle, in place.
+    private static void shuffle(IntBuffer pack, int cards, SplittableRandom random) {
+        for (int i = cards - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int card = pack.get(i);
+            pack.put(i, pack.get(j));
+            pack.put(j, card);
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package org.game;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+// Reads a pack file in a single pass. The file is read through a large NIO buffer and the card values are parsed
+// straight from the bytes, checking the format, that no value is negative and the number of cards as it goes.
+// Each card is handed to a CardSink as soon as it is read, so a game can deal it without building a list of the pack.
+public final class PackLoader {
+    // Size of the buffer the file is read through.
+    private static final int BUFFER_SIZE = 1 << 20;
+
+    // Receives the cards of a pack in the order they appear in the file.
+    @FunctionalInterface
+    public interface CardSink {
+        void accept(int position, int value);
+    }
+
+    private PackLoader() {
+    }
+
+    // Reads the pack file, passing each card to the sink. The file must hold exactly expectedCards cards,
+    // or any number of cards if expectedCards is negative. Returns the number of cards read.
+    // Throws CardGame.InvalidFileException if the pack is not valid, as soon as the problem is found.
+    public static int load(String filePath, int expectedCards, CardSink sink) throws IOException {
+        try (FileChannel channel = FileChannel.open(Paths.get(filePath), StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect((int) Math.min(BUFFER_SIZE, Math.max(channel.size(), 16)));
+            int count = 0;         // Number of cards read so far.
+            int lineNumber = 1;    // Line being parsed, for error messages.
+            long value = 0;        // Value of the card on the current line so far.
+            boolean digits = false;      // True once the current line has a digit.
+            boolean afterDigits = false; // True if whitespace followed the digits, so no more digits may come.
+
+            while (channel.read(buffer) >= 0) {
+                buffer.flip();
+                while (buffer.hasRemaining()) {
+                    byte b = buffer.get();
+                    if (b >= '0' && b <= '9') {
+                        if (afterDigits) {
+                            throw invalidLine(lineNumber, "more than one value");
+                        }
+                        value = value * 10 + (b - '0');
+                        if (value > Integer.MAX_VALUE) {
+                            throw invalidLine(lineNumber, "value is too large");
+                        }
+                        digits = true;
+                    } else if (b == '\n') {
+                        if (!digits) {
+                            throw invalidLine(lineNumber, "no card value");
+                        }
+                        count = addCard(count, (int) value, expectedCards, sink);
+                        lineNumber++;
+                        value = 0;
+                        digits = false;
+                        afterDigits = false;
+                    } else if (b == '-') {
+                        throw invalidLine(lineNumber, "card values must be non-negative");
+                    } else if (b == ' ' || b == '\t' || b == '\r') {
+                        afterDigits = digits; // Whitespace around the value is allowed, as with trim().
+                    } else {
+                        throw invalidLine(lineNumber, "not a whole number");
+                    }
+                }
+                buffer.clear();
+            }
+
+            // The last line does not need to end with a newline.
+            if (digits) {
+                count = addCard(count, (int) value, expectedCards, sink);
+            }
+            if (expectedCards >= 0 && count != expectedCards) {
+                throw invalidSize(expectedCards);
+            }
+            return count;
+        }
+    }
+
+    // Reads every card in the pack file into an array, for packs that are shared by many games.
+    public static int[] readValues(String filePath) throws IOException {
+        int[][] values = {new int[1024]};
+        int count = load(filePath, -1, (position, value) -> {
+            if (position == values[0].length) {
+                values[0] = Arrays.copyOf(values[0], position * 2);
+            }
+            values[0][position] = value;
+        });
+        return Arrays.copyOf(values[0], count);
+    }
+
+    // Hands one card to the sink, failing as soon as there are more cards than expected.
+    private static int addCard(int count, int value, int expectedCards, CardSink sink) throws CardGame.InvalidFileException {
+        if (expectedCards >= 0 && count == expectedCards) {
+            throw invalidSize(expectedCards);
+        }
+        sink.accept(count, value);
+        return count + 1;
+    }
+
+    private static CardGame.InvalidFileException invalidLine(int lineNumber, String problem) {
+        return new CardGame.InvalidFileException("Invalid card on line " + lineNumber + ": " + problem + ".");
+    }
+
+    private static CardGame.InvalidFileException invalidSize(int expectedCards) {
+        return new CardGame.InvalidFileException("Invalid pack size. Expected " + expectedCards + " cards.");
+    }
+}
@@ -1,70 +1,177 @@
 package org.game;
 
-import java.io.File;
-import java.io.FileWriter;
-import java.io.IOException;
-import java.util.ArrayList;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
 import java.util.List;
-import java.util.Random;
-import java.util.stream.Collectors;
+import java.util.SplittableRandom;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BooleanSupplier;
 
 // Represents a player in the card game.
-// Each player operates in its own thread and performs actions like drawing and discarding cards.
+// Each player is a task that runs on its own thread (a dedicated, pooled or virtual thread, chosen by CardGame)
+// and performs actions like drawing and discarding cards.
 // The goal of the player is to collect a hand of four cards with the same value.
-public class Player extends Thread {
+public class Player implements Runnable {
     // Unique ID for the player.
     private final int id;
 
     // The preferred value of cards for this player. Uses their ID value.
     private final int preferredValue;
 
-    // The player's current hand of cards, stored as a list.
-    private final List<Card> hand = new ArrayList<>();
+    // The player's current hand of cards, stored in primitive arrays with a histogram of the values held.
+    private final Hand hand;
+
+    // The hand and turn count as of the end of the last turn, for other threads to read while the player runs.
+    private final HandView view = new HandView();
+
+    // The player's own random source for choosing discards. Reused every turn and only used by the player's thread.
+    // Unseeded unless the game gives it a seed, so discards can be repeated exactly.
+    private SplittableRandom random = new SplittableRandom();
 
     // References to the decks to the left and right of the player.
     private final CardDeck leftDeck;
     private final CardDeck rightDeck;
 
-    // The file name where the player's actions are logged.
-    private final String outputFileName;
+    // The name of the output the player's actions are logged to, e.g. player1_output.txt.
+    private final String outputName;
 
     // A reference to the CardGame class, allowing the player to signal a win to other players. It is the same instance of CardGame for all players. (Defined in the Cardgame class)
     private CardGame cardgame;
 
-    // Get the current working directory
-    private String currentWorkingDir = System.getProperty("user.dir");
+    // Where the player's output goes. Until a game gives it its own sink, lines go straight to the file in the working directory.
+    private volatile OutputSink output = DEFAULT_OUTPUT;
+
+    // The sink of a player outside a game. Never opened, so it writes straight to the files. Shared, as it has no state.
+    private static final OutputSink DEFAULT_OUTPUT = FileOutputSink.workingDirectory();
+
+    // The game's binary event log, or null if the game does not keep one.
+    private volatile EventLog eventLog;
+
+    // Checks the shared CardGame for a win. Created once in setMain so waiting does not allocate.
+    private BooleanSupplier gameOver = () -> false;
+
+    // How the player waits when the left deck is empty or the right deck is full. Set by CardGame before the game starts.
+    private WaitStrategy waitStrategy = WaitStrategy.PARK;
+
+    // The thread running this player, so it can be woken up when the game is won.
+    private volatile Thread runner;
+
+    // False if the game runs without output files, then the player does not build or write any log lines.
+    private volatile boolean outputEnabled = true;
+
+    // The counters below are only written by the player's own thread. It reads them as plain fields and publishes them
+    // with release stores through the handles, so counting adds no fence to a turn. Other threads read them with acquire loads.
+
+    // Number of turns (draw and discard) the player has completed.
+    private long turns;
+
+    // Idle counters: total time spent waiting for a card, and the number of waits.
+    private long idleNanos;
+    private long idleCount;
+
+    // Number of times the player found the left deck empty when it went to draw.
+    private long emptyDraws;
+
+    private static final VarHandle TURNS;
+    private static final VarHandle IDLE_NANOS;
+    private static final VarHandle IDLE_COUNT;
+    private static final VarHandle EMPTY_DRAWS;
+
+    static {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            TURNS = lookup.findVarHandle(Player.class, "turns", long.class);
+            IDLE_NANOS = lookup.findVarHandle(Player.class, "idleNanos", long.class);
+            IDLE_COUNT = lookup.findVarHandle(Player.class, "idleCount", long.class);
+            EMPTY_DRAWS = lookup.findVarHandle(Player.class, "emptyDraws", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    // When the player started and stopped playing, from System.nanoTime. Used to work out the player's turns per second.
+    private volatile long startNanos;
+    private volatile long stopNanos;
+
+    // How long each turn took, from the draw to the end of the discard. Only created and recorded with turn timing on,
+    // as timing a turn reads the clock twice. Only written by the player's own thread.
+    private volatile LatencyHistogram turnLatency;
+    private volatile boolean turnTiming;
 
     // Constructor to initialize a player with their ID and neighboring decks.
     public Player(int id, CardDeck leftDeck, CardDeck rightDeck) {
         this.id = id; // Assigns the player's ID.
         this.preferredValue = id; // Sets the preferred card value based on ID.
+        this.hand = new Hand(preferredValue); // Creates an empty hand that tracks the preferred value.
         this.leftDeck = leftDeck; // Assigns the left deck.
         this.rightDeck = rightDeck; // Assigns the right deck.
-        // Set the output file name relative to the current working directory
-        this.outputFileName = currentWorkingDir + File.separator + "player" + id + "_output.txt";
+        this.outputName = "player" + id + "_output.txt";
+    }
 
-        // Clears the contents of the player's output file at the start of the game.
-        // This ensures that previous game data does not interfere with the current game's logs.
-        try (FileWriter writer = new FileWriter(outputFileName, false)) {
-            // Using FileWriter in non-append mode automatically overwrites the file, effectively clearing its contents of any previous program runs.
-        } catch (IOException e) {
-            // Handles any IOException that might occur during file operations.
-            // Provides an error message to the console to aid in debugging.
-            System.out.println("An error occurred while clearing the file: " + e.getMessage());
-        }
+    // Clears the contents of the player's output at the start of the game. Called by CardGame only when output is on.
+    // This ensures that previous game data does not interfere with the current game's logs.
+    public void clearOutputFile() {
+        output.replace(outputName, "");
     }
 
     // The method in the CardGame class calls this method for all players, ensuring that the cardGame field in each player object references the same CardGame instance.
-    // This allows the winning player to update the "gameWon" field in the players' shared CardGame object.
+    // This allows the winning player to claim the win in the players' shared CardGame object.
     // Thus, enabling other players to immediately recognize that the game has ended and thus stop playing.
     public void setMain(CardGame cardgame) {
         this.cardgame = cardgame;
+        this.gameOver = cardgame::isGameOver;
+    }
+
+    // Sets how the player waits for cards. Must be called before the player starts.
+    public void setWaitStrategy(WaitStrategy waitStrategy) {
+        if (waitStrategy == null) {
+            throw new NullPointerException("Wait strategy can not be null");
+        }
+        this.waitStrategy = waitStrategy;
+    }
+
+    // Seeds the player's random source, so the same hand and draws always lead to the same discards. Must be called before the player starts.
+    public void setSeed(long seed) {
+        this.random = new SplittableRandom(seed);
+    }
+
+    // Turns the recording of turn durations on or off. Called by CardGame before the game starts.
+    public void setTurnTiming(boolean turnTiming) {
+        if (turnTiming && turnLatency == null) {
+            turnLatency = new LatencyHistogram();
+        }
+        this.turnTiming = turnTiming;
+    }
+
+    // Sets where the player's output goes. Called by CardGame when the game starts.
+    public void setOutputSink(OutputSink output) {
+        if (output == null) {
+            throw new NullPointerException("Output sink can not be null");
+        }
+        this.output = output;
+    }
+
+    // Sets the binary event log the player records its draws, discards and exit to. Called by CardGame before the game starts.
+    public void setEventLog(EventLog eventLog) {
+        this.eventLog = eventLog;
+    }
+
+    // Turns the player's output file on or off. Called by CardGame before the game starts.
+    public void setOutputEnabled(boolean outputEnabled) {
+        this.outputEnabled = outputEnabled;
+    }
+
+    // Wakes the player up if it is parked waiting for a card, so it notices the game has been won.
+    public void wakeUp() {
+        Thread parked = runner;
+        if (parked != null) {
+            LockSupport.unpark(parked);
+        }
     }
 
     // Checks if the player has a winning hand (all cards in hand have the same value).
     public boolean hasWinningHand() {
-        int firstValue = hand.get(0).getValue(); // Gets the value of the first card in hand.
-        return hand.stream().allMatch(card -> card.getValue() == firstValue); // Verifies all cards match.
+        return hand.isWinning(); // The hand's histogram holds a single value.
     }
 
     // Draws a card from the left deck.
@@ -73,47 +180,60 @@ public class Player extends Thread {
         return leftDeck.drawCard(); // Returns the card drawn from the left deck.
     }
 
+    // Waits for a card from the left deck using the wait strategy, and adds the time waited to the idle counters.
+    // Returns null if the game was won while waiting.
+    private Card waitForCard() {
+        long idleStart = System.nanoTime();
+        Card card = leftDeck.awaitCard(waitStrategy, gameOver);
+        long waited = System.nanoTime() - idleStart;
+        IDLE_NANOS.setRelease(this, idleNanos + waited);
+        IDLE_COUNT.setRelease(this, idleCount + 1);
+        return card;
+    }
+
     // Discards a card to the right deck.
     public void discardCard(Card card) {
         // Throws exception if the card is not in the players hand
-        if (!hand.contains(card)) {
+        if (hand.indexOf(card) < 0) {
             throw new IllegalArgumentException("Card is not in hand");
         }
         rightDeck.addCard(card); // Adds the card to the right deck.
     }
 
-    // Logs an action to the player's output file.
+    // Logs an action to the player's output, through the game's output sink.
     public void logAction(String message) {
-        try (FileWriter writer = new FileWriter(outputFileName, true)) {
-            writer.write(message + "\n"); // Writes the message to the output file.
-        } catch (IOException e) {
-            e.printStackTrace(); // Prints an error if logging fails.
+        writeOutput(message + "\n");
+    }
+
+    // Adds text to the player's output.
+    private void writeOutput(String text) {
+        if (!outputEnabled) {
+            return;
         }
+        output.append(outputName, text);
     }
 
-    // Method for when a player has won. It declares and logs the win. Also notifies other players via calling the method in the CardGame object.
+    // Method for when a player has won the claim for the win. It declares and logs the win. Also notifies other players via calling the method in the CardGame object.
     public void declareWin() {
+        EventLog events = eventLog;
+        if (events != null) events.win(id);
         logAction("player " + id + " wins"); // Logs the win message.
         logAction("player " + id + " exits"); // Logs the exit message.
         logAction("player " + id + " final hand: " + hand + "\n"); // Logs the final hand.
-        cardgame.notifyAllPlayers(id); // Notifies the CardGame object of the win. This calls a method that changes the field gameWon to True.
+        cardgame.notifyAllPlayers(id); // Notifies the CardGame object of the win, which wakes the other players so they stop.
     }
 
-    // Handles a losing player's final actions when another player wins.
+    // Handles a losing player's final actions when another player wins. Called on the losing player's own thread as it exits.
     public void stopRunning(int winnerId, int numPlayers) {
         if (winnerId != id) { // Only execute for losing players.
+            EventLog events = eventLog;
+            if (events != null) events.exit(id, winnerId);
             // Sets up the messages to log.
             String LosingMessage1 = "player " + winnerId + " has informed player " + id + " that player " + winnerId + " has won";
             String LosingMessage2 = "player " + id + " exits";
             String LosingMessage3 = "player " + id + " final hand: " + hand;
-            // Logs messages to the player's output file upon losing.
-            try (FileWriter writer = new FileWriter(outputFileName, true)) {
-                writer.write(LosingMessage1 + "\n");
-                writer.write(LosingMessage2 + "\n");
-                writer.write(LosingMessage3 + "\n");
-            } catch (IOException e) {
-                e.printStackTrace(); // Handles any error caused by the logging.
-            }
+            // Logs messages to the player's output file upon losing, as one piece of text so they stay together.
+            writeOutput(LosingMessage1 + "\n" + LosingMessage2 + "\n" + LosingMessage3 + "\n");
         }
         return;
     }
@@ -122,52 +242,154 @@ public class Player extends Thread {
     public void addInitialCards(Card card) {
         // Appending given card from pack to player's hand.
         hand.add(card);
+        view.publish(hand, turns);
     }
 
-    // Main execution method for the player's thread.
+    // Main execution method for the player's task.
+    // Only one thread runs a player at a time, the hand is never touched by another thread while the game is running.
     @Override
-    public synchronized void run() {
-        // Logs the initial hand dealt to the player.
-        logAction("player " + id + " initial hand " + hand + "\n");
+    public void run() {
+        runner = Thread.currentThread(); // Remembers the thread so it can be unparked when the game ends.
+        int fullAttempts = 0; // Number of times in a row the right deck has been full.
+        boolean logging = outputEnabled; // Read once, so a game without output does not build any log lines.
+        boolean timing = turnTiming; // Read once, so a game without turn timing does not read the clock every turn.
+        markStarted();
+        try {
+            logInitialHand(); // Logs the initial hand dealt to the player.
+            if (checkInitialWin()) {
+                return; // Exits the thread.
+            }
 
-        // Checks if the player has a winning hand immediately after receiving cards.
-        if (hasWinningHand()) {
-            cardgame.setGameWon(); // Marks the game as won.
-            declareWin(); // Calls the method to declare the win for this player to the other players.
+            // Main game loop: Executes until the game is won, or stopped because another player has failed.
+            // While loop uses the method isGameOver in the cardgame object. To see if the game is over or not.
+            while (!cardgame.isGameOver()) {
+                // Waits if the right deck has no space for the discard. Only this player adds to it, so it can not fill up again before the discard.
+                if (rightDeck.isFull()) {
+                    waitStrategy.idleForSpace(fullAttempts++);
+                    continue;
+                }
+                fullAttempts = 0;
+
+                // Draws a card from the left deck. Waits with the wait strategy if the deck is empty.
+                long turnStart = timing ? System.nanoTime() : 0;
+                Card drawnCard = drawCard();
+                if (drawnCard == null) {
+                    EMPTY_DRAWS.setRelease(this, emptyDraws + 1);
+                    drawnCard = waitForCard();
+                    if (drawnCard == null) continue; // The game ended while waiting, so the loop ends.
+                }
+
+                // Plays the rest of the turn with the drawn card.
+                if (finishTurn(drawnCard, logging, timing, turnStart)) {
+                    return; // The player has won, so exits the thread.
+                }
+            }
+            // Another player has won, so this player logs its own final state before exiting.
+            // Nobody has won if the game was stopped by a failure, so there is nothing to log.
+            Integer winnerId = cardgame.getWinnerId();
+            if (winnerId != null) {
+                stopRunning(winnerId, cardgame.getNumPlayers());
+            }
             return; // Exits the thread.
+        } finally {
+            markStopped();
         }
+    }
+
+    // Empties the hand and zeroes the counters, so the player can be dealt a new game. Called by CardGame.reset, never while the player is running.
+    void reset() {
+        hand.clear();
+        runner = null;
+        TURNS.setRelease(this, 0L);
+        view.publish(hand, 0);
+        IDLE_NANOS.setRelease(this, 0L);
+        IDLE_COUNT.setRelease(this, 0L);
+        EMPTY_DRAWS.setRelease(this, 0L);
+        startNanos = 0;
+        stopNanos = 0;
+        LatencyHistogram histogram = turnLatency;
+        if (histogram != null) {
+            histogram.clear();
+        }
+    }
 
-        // Main game loop: Executes until the game is won.
-        // While loop uses the method getGameWon in the cardgame object. To see if the game has been won or not.
-        while (!cardgame.getGameWon()) {
-            // Draws a card from the left deck.
-            Card drawnCard = drawCard();
-            if (drawnCard == null) continue; // Skips if no card is drawn.
+    // Records when the player starts playing. Called by run, or by CardGame when it drives the player itself.
+    void markStarted() {
+        stopNanos = 0;
+        startNanos = System.nanoTime();
+    }
+
+    // Records when the player stops playing.
+    void markStopped() {
+        stopNanos = System.nanoTime();
+    }
 
-            hand.add(drawnCard); // Adds the drawn card to the hand.
-            logAction("player " + id + " draws a " + drawnCard.getValue() + " from deck " + id); // Logs the card drawn.
+    // Logs the initial hand dealt to the player.
+    void logInitialHand() {
+        if (outputEnabled) logAction("player " + id + " initial hand " + hand + "\n");
+    }
 
-            // Finds a card in the hand that is not of the player's preferred value.
-            Random random = new Random();
-            List<Card> nonPreferredCards = hand.stream()            // Creates a list of all the non preferred cards.
-                    .filter(card -> card.getValue() != preferredValue)
-                    .collect(Collectors.toList());
-            Card discardCard = nonPreferredCards.get(random.nextInt(nonPreferredCards.size())); // Chooses a random card from the list of non preferred cards.
+    // Checks if the player has a winning hand immediately after receiving cards, and declares the win if so.
+    // Returns true if the player has won. A player that loses the claim to another player with a winning hand has not won.
+    boolean checkInitialWin() {
+        if (hasWinningHand() && cardgame.claimWin(id)) { // Claims the win, only one player can.
+            declareWin(); // Calls the method to declare the win for this player to the other players.
+            return true;
+        }
+        return false;
+    }
+
+    // Plays a single turn without waiting: draws from the left deck, discards to the right deck and checks for a win.
+    // Returns false, having done nothing, if the left deck is empty or the right deck is full.
+    // Used to drive a player one turn at a time (e.g. by a round-based game or a benchmark) instead of running its loop.
+    public boolean takeTurn() {
+        if (rightDeck.isFull()) {
+            return false;
+        }
+        boolean timing = turnTiming;
+        long turnStart = timing ? System.nanoTime() : 0;
+        Card drawnCard = drawCard();
+        if (drawnCard == null) {
+            EMPTY_DRAWS.setRelease(this, emptyDraws + 1);
+            return false;
+        }
+        finishTurn(drawnCard, outputEnabled, timing, turnStart);
+        return true;
+    }
 
-            discardCard(discardCard); // Discards that card to the right deck.
-            hand.remove(discardCard); // Removes the selected card from the hand.
-            // Logs these actions.
+    // Adds the drawn card to the hand, discards a non-preferred card to the right deck and checks for a win.
+    // Records how long the turn took if timing is on. Returns true if this turn won the game.
+    private boolean finishTurn(Card drawnCard, boolean logging, boolean timing, long turnStart) {
+        EventLog events = eventLog;
+        if (events != null) events.draw(id, drawnCard.getValue()); // Recorded after the card has left the deck.
+        hand.add(drawnCard); // Adds the drawn card to the hand.
+        if (logging) logAction("player " + id + " draws a " + drawnCard.getValue() + " from deck " + id); // Logs the card drawn.
+
+        // Chooses a random card in the hand that is not of the player's preferred value.
+        int discardIndex = hand.pickNonPreferred(random);
+        Card discardCard = hand.get(discardIndex);
+
+        if (events != null) events.discard(id, discardCard.getValue(), discardIndex); // Recorded before the card reaches the deck.
+        rightDeck.addCard(discardCard); // Discards that card to the right deck.
+        hand.removeAt(discardIndex); // Removes the selected card from the hand.
+        long completed = turns + 1;
+        TURNS.setRelease(this, completed); // Counts the completed turn.
+        view.publish(hand, completed); // The turn is over, so other threads can now see the new hand.
+        if (timing) {
+            turnLatency.record(System.nanoTime() - turnStart); // Recorded before any win, so ending the game is not part of the turn.
+        }
+        // Logs these actions.
+        if (logging) {
             logAction("player " + id + " discards a " + discardCard.getValue() + " to deck " + ((id % 4) + 1));
             logAction("player " + id + " current hand is " + hand + "\n");
+        }
 
-            // Checks if the player has a winning hand.
-            if (!cardgame.getGameWon() && hasWinningHand()) {
-                cardgame.setGameWon(); // Marks the game as won. By calling the setGameWon in the CardGame object.
-                declareWin(); // Declares the win for this player.
-                return; // Exits the thread.
-            }
+        // Checks if the player has a winning hand, and claims the win if so. Only the first claim in the game succeeds.
+        if (hasWinningHand() && cardgame.claimWin(id)) {
+            declareWin(); // Declares the win for this player.
+            return true;
         }
-        return; // Exits the thread.
+        return false;
     }
     // Test methods
 
@@ -176,13 +398,56 @@ public class Player extends Thread {
         return id;
     }
 
-    // For testing if the player hand has been set up properly
+    // For testing if the player hand has been set up properly. Returns a copy of the hand.
+    // Only reliable while the player is not running. CardGame.snapshot reads the hands of a running game.
     public List<Card> getHand(){
-        return hand;
+        return hand.toList();
+    }
+
+    // Reads the hand and turn count published at the end of the player's last turn. Safe to call from any thread.
+    HandView.Copy readView() {
+        return view.read();
+    }
+
+    // Gets the number of turns the player has completed.
+    public long getTurns() {
+        return (long) TURNS.getAcquire(this);
+    }
+
+    // Gets the total time this player has spent waiting for a card, in nanoseconds.
+    public long getIdleNanos() {
+        return (long) IDLE_NANOS.getAcquire(this);
+    }
+
+    // Gets the number of times this player found the left deck empty and had to wait.
+    public long getIdleCount() {
+        return (long) IDLE_COUNT.getAcquire(this);
+    }
+
+    // Gets the number of times this player found the left deck empty when it went to draw.
+    public long getEmptyDraws() {
+        return (long) EMPTY_DRAWS.getAcquire(this);
+    }
+
+    // Gets the turns this player has completed per second of play, up to now or up to when it stopped. 0 before it starts.
+    public double getTurnsPerSecond() {
+        long start = startNanos;
+        if (start == 0) {
+            return 0;
+        }
+        long stop = stopNanos;
+        long elapsed = (stop == 0 ? System.nanoTime() : stop) - start;
+        return elapsed <= 0 ? 0 : getTurns() * 1_000_000_000.0 / elapsed;
+    }
+
+    // Gets the durations of this player's turns, or null if turn timing has never been on.
+    LatencyHistogram getTurnLatency() {
+        return turnLatency;
     }
 
     // For testing to reset a players hand
     public void clearHand(){
         hand.clear();
+        view.publish(hand, turns);
     }
 }
@@ -0,0 +1,170 @@
+package org.game;
+
+import java.lang.invoke.VarHandle;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+// A lock-free, fixed-capacity deck for the single-producer/single-consumer case.
+// In a game each deck is only ever discarded into by the player on its left and drawn from by the player on its right,
+// so one thread moves the tail and one thread moves the head. No monitor is taken and no node is allocated per card.
+public class RingBufferCardDeck extends CardDeck {
+    // Default number of slots. A deck never needs to hold every card in the game, the owning player waits while it is full.
+    public static final int DEFAULT_CAPACITY = 64;
+
+    // The slots holding the cards. The length is always a power of two so the index can be found with a mask.
+    private final Card[] buffer;
+    private final int mask;
+
+    // Position of the next card to draw. Only moved by the consumer.
+    private final AtomicLong head = new AtomicLong();
+    // Position of the next free slot. Only moved by the producer.
+    private final AtomicLong tail = new AtomicLong();
+
+    // Local copies of the other side's position, so the hot path does not read the shared counter every time.
+    private long cachedHead; // Used by the producer only.
+    private long cachedTail; // Used by the consumer only.
+
+    // Number of times each side had to read the other side's position because its local copy was used up.
+    // There is no CAS to retry, so these reads are the only traffic between the two threads. Each counter has a single writer.
+    private final AtomicLong headRefreshes = new AtomicLong(); // Written by the producer only.
+    private final AtomicLong tailRefreshes = new AtomicLong(); // Written by the consumer only.
+
+    // Constructs a deck with the default capacity.
+    public RingBufferCardDeck() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    // Constructs a deck holding at least the given number of cards (rounded up to a power of two).
+    public RingBufferCardDeck(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be a positive integer");
+        }
+        int size = Integer.highestOneBit(capacity);
+        if (size < capacity) {
+            size <<= 1; // Round up to the next power of two.
+        }
+        this.buffer = new Card[size];
+        this.mask = size - 1;
+    }
+
+    // Add a card to the bottom of the deck. Must only be called by the single producer.
+    @Override
+    public void addCard(Card card) {
+        if (card == null) {
+            throw new NullPointerException("Card value can not be null");
+        }
+        long currentTail = tail.get();
+        if (currentTail - cachedHead >= buffer.length) {
+            cachedHead = head.get(); // Refresh the consumer's position before deciding the deck is full.
+            headRefreshes.lazySet(headRefreshes.get() + 1);
+            if (currentTail - cachedHead >= buffer.length) {
+                throw new IllegalStateException("Deck is full");
+            }
+        }
+        buffer[(int) currentTail & mask] = card;
+        tail.lazySet(currentTail + 1); // Publishes the card to the consumer (ordered store, no full fence).
+        signalWaiter(); // Wakes the consumer if it is parked. A missed signal only costs the bounded park time.
+    }
+
+    // Draw (remove) a card from the top of the deck, or null if it is empty. Must only be called by the single consumer.
+    @Override
+    public Card drawCard() {
+        long currentHead = head.get();
+        if (currentHead >= cachedTail) {
+            cachedTail = tail.get(); // Refresh the producer's position before deciding the deck is empty.
+            tailRefreshes.lazySet(tailRefreshes.get() + 1);
+            if (currentHead >= cachedTail) {
+                return null;
+            }
+        }
+        int index = (int) currentHead & mask;
+        Card card = buffer[index];
+        buffer[index] = null; // Clears the slot so the card is not kept reachable.
+        head.lazySet(currentHead + 1); // Hands the slot back to the producer.
+        return card;
+    }
+
+    // Check if the deck is empty.
+    @Override
+    public boolean isEmpty() {
+        return head.get() >= tail.get();
+    }
+
+    // Check if the deck has no free slot left.
+    @Override
+    public boolean isFull() {
+        return tail.get() - head.get() >= buffer.length;
+    }
+
+    // Returns the number of cards in the deck.
+    @Override
+    public int size() {
+        long currentHead = head.get(); // Read first, so the result is never negative.
+        return (int) Math.min(tail.get() - currentHead, buffer.length); // Both sides may have moved on between the reads.
+    }
+
+    // Returns the number of times either side had to read the other side's position. The deck has no lock to wait for.
+    @Override
+    public long getContention() {
+        return headRefreshes.get() + tailRefreshes.get();
+    }
+
+    // Removes every card and zeroes the counters, so the deck can be used for a new game.
+    // Must not be called while players are using the deck. Starting the next game's threads publishes the new positions.
+    @Override
+    public void reset() {
+        Arrays.fill(buffer, null);
+        head.set(0);
+        tail.set(0);
+        cachedHead = 0;
+        cachedTail = 0;
+        headRefreshes.set(0);
+        tailRefreshes.set(0);
+    }
+
+    // Returns the number of slots in the deck.
+    public int capacity() {
+        return buffer.length;
+    }
+
+    // Copies the cards at the given positions like CardDeck.copyRange, but with no lock and no write, so a reader never
+    // slows the producer or the consumer. The head and tail are the positions. A slot is only filled again after its
+    // card has been drawn, so if the head has not passed from once the slots are read, every slot read was the right card.
+    @Override
+    boolean copyRange(long from, long to, int[] into) {
+        if (to - from > buffer.length) {
+            return false;
+        }
+        for (long i = from; i < to; i++) {
+            Card card = buffer[(int) i & mask];
+            if (card == null) {
+                return false; // Drawn, or not added yet.
+            }
+            into[(int) (i - from)] = card.getValue();
+        }
+        VarHandle.acquireFence(); // The slots are read before the head and tail are.
+        return head.get() <= from && tail.get() >= to;
+    }
+
+    // Returns a copy of the cards in the deck, from the top (next to be drawn) to the bottom.
+    @Override
+    public List<Card> toList() {
+        List<Card> cards = new ArrayList<>();
+        long currentTail = tail.get();
+        for (long i = head.get(); i < currentTail; i++) {
+            Card card = buffer[(int) i & mask];
+            if (card != null) { // Null if the consumer took this card while we were reading.
+                cards.add(card);
+            }
+        }
+        return cards;
+    }
+
+    // Returns a string representation of the deck, in the same format as CardDeck.
+    @Override
+    public String toString() {
+        return toList().toString();
+    }
+}
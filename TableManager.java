@@ -0,0 +1,190 @@
+package org.game;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+// Hosts many games (tables) at once on one fixed pool of worker threads, instead of a thread per player.
+// Each table is played in slices: a worker plays a few rounds of turns (as in the round-based mode), then puts the table
+// at the back of the queue, so every table gets the same share of the workers however many players it has.
+// At most maxTables games are admitted at once. Further games wait in submit until a table finishes (backpressure),
+// so adding tables shares out the same workers instead of oversubscribing the CPU.
+public class TableManager implements AutoCloseable {
+    // Default number of turns played in one slice of a table, across all its players.
+    public static final int DEFAULT_TURNS_PER_SLICE = 1024;
+
+    private final ExecutorService workers;     // Plays the slices of every table.
+    private final Semaphore admission;         // One permit per table that may be in play at once.
+    private final int maxTables;
+    private final Set<Table> activeTables = ConcurrentHashMap.newKeySet(); // The tables admitted and not yet finished.
+    private volatile int turnsPerSlice = DEFAULT_TURNS_PER_SLICE;
+    private volatile boolean closed;
+
+    // A game being played by the manager, with its turn rate.
+    public static final class Table {
+        private final CardGame game;
+        private final CompletableFuture<Integer> result;
+        private final long admittedNanos = System.nanoTime();
+        private volatile long finishedNanos;   // 0 until the game is over.
+        private volatile long slices;          // Only written by the worker playing the table's current slice.
+        private volatile boolean cancelled;
+
+        private Table(CardGame game, CompletableFuture<Integer> result) {
+            this.game = game;
+            this.result = result;
+        }
+
+        public CardGame getGame() {
+            return game;
+        }
+
+        // Gets the game's future, completed with the winner's ID once the game is over.
+        public CompletableFuture<Integer> getResult() {
+            return result;
+        }
+
+        public long getTurns() {
+            return game.getTotalTurns();
+        }
+
+        // Gets the turns played per second since the table was admitted, up to now or until the game finished.
+        public double getTurnsPerSecond() {
+            long end = finishedNanos;
+            long elapsed = (end == 0 ? System.nanoTime() : end) - admittedNanos;
+            return elapsed <= 0 ? 0 : getTurns() * 1_000_000_000.0 / elapsed;
+        }
+
+        // Gets the number of slices the table has been given so far.
+        public long getSlices() {
+            return slices;
+        }
+
+        // Stops the game at the end of its current slice, e.g. one whose pack can never be won.
+        // Its future then completes with a CancellationException, unless the game was won first.
+        public void cancel() {
+            cancelled = true;
+        }
+    }
+
+    // Creates a manager with one worker per core, admitting at most the given number of tables at once.
+    public TableManager(int maxTables) {
+        this(Runtime.getRuntime().availableProcessors(), maxTables);
+    }
+
+    // Creates a manager with the given number of worker threads, admitting at most the given number of tables at once.
+    public TableManager(int workerThreads, int maxTables) {
+        if (workerThreads < 1) {
+            throw new IllegalArgumentException("Worker threads must be a positive integer");
+        }
+        if (maxTables < 1) {
+            throw new IllegalArgumentException("Max tables must be a positive integer");
+        }
+        this.workers = Executors.newFixedThreadPool(workerThreads, Thread.ofPlatform().name("table-worker-", 1).factory());
+        this.admission = new Semaphore(maxTables, true); // Fair, so games are admitted in the order they were submitted.
+        this.maxTables = maxTables;
+    }
+
+    // Sets the number of turns a worker plays on one table before moving on to the next.
+    // Fewer turns share the workers more evenly, more turns spend less time switching between tables.
+    public void setTurnsPerSlice(int turnsPerSlice) {
+        if (turnsPerSlice < 1) {
+            throw new IllegalArgumentException("Turns per slice must be a positive integer");
+        }
+        this.turnsPerSlice = turnsPerSlice;
+    }
+
+    // Admits a game that has not been started and starts playing it, waiting while maxTables games are already in play.
+    // The game's execution mode and executor are not used, its players are driven by the manager's workers.
+    public Table submit(CardGame game) throws InterruptedException {
+        admission.acquire();
+        return admit(game);
+    }
+
+    // Admits a game like submit, but only waits for the given time for a free table. Returns null if there was none.
+    public Table trySubmit(CardGame game, long timeout, TimeUnit unit) throws InterruptedException {
+        if (!admission.tryAcquire(timeout, unit)) {
+            return null;
+        }
+        return admit(game);
+    }
+
+    // Starts a game that holds an admission permit, and queues its first slice.
+    private Table admit(CardGame game) {
+        Table table;
+        try {
+            if (closed) {
+                throw new IllegalStateException("The table manager has been closed");
+            }
+            table = new Table(game, game.startRounds()); // Throws if the game has already been started.
+        } catch (RuntimeException e) {
+            admission.release();
+            throw e;
+        }
+        activeTables.add(table);
+        workers.execute(() -> playSlice(table));
+        return table;
+    }
+
+    // Plays one slice of a table, then queues the next slice at the back of the queue, or ends the game once it is won.
+    private void playSlice(Table table) {
+        CardGame game = table.game;
+        boolean over;
+        try {
+            if (table.cancelled) {
+                throw new CancellationException("The table was cancelled");
+            }
+            // A slice is a number of turns, so a table with many players plays fewer rounds and gets no bigger share.
+            over = game.playRounds(Math.max(1, turnsPerSlice / game.getNumPlayers()));
+        } catch (RuntimeException e) {
+            try {
+                game.finishRounds(e);
+            } finally {
+                finish(table);
+            }
+            return;
+        }
+        table.slices++;
+        if (over) {
+            try {
+                game.finishRounds(null);
+            } finally {
+                finish(table);
+            }
+        } else {
+            workers.execute(() -> playSlice(table));
+        }
+    }
+
+    // Records that a table's game is over and frees its place for the next game.
+    private void finish(Table table) {
+        table.finishedNanos = System.nanoTime();
+        activeTables.remove(table);
+        admission.release();
+    }
+
+    // Gets the tables currently in play.
+    public List<Table> getActiveTables() {
+        return new ArrayList<>(activeTables);
+    }
+
+    // Gets the number of tables that may be in play at once.
+    public int getMaxTables() {
+        return maxTables;
+    }
+
+    // Stops admitting games, waits for every table in play to finish, then stops the worker threads.
+    @Override
+    public void close() {
+        closed = true;
+        admission.acquireUninterruptibly(maxTables); // Every permit is back once every table has finished.
+        workers.shutdown();
+        admission.release(maxTables); // Lets any submit still waiting through, to find the manager closed.
+    }
+}
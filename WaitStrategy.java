@@ -0,0 +1,53 @@
+package org.game;
+
+import java.util.concurrent.locks.LockSupport;
+
+// The ways a player can wait for a card when the deck to its left is empty.
+// The strategies keep no state of their own. The time spent waiting is counted per player, and totalled per game by
+// CardGame.getTotalIdleNanos and getTotalIdleCount, so games using the same strategy never mix their totals.
+public enum WaitStrategy {
+    // Keeps checking the deck as fast as possible. Lowest wake-up latency, but burns a full core per waiting player.
+    BUSY_SPIN {
+        @Override
+        void idle(CardDeck deck, int attempt) {
+            Thread.onSpinWait();
+        }
+    },
+    // Spins for a short while, then gives the core to other threads between checks.
+    SPIN_THEN_YIELD {
+        @Override
+        void idle(CardDeck deck, int attempt) {
+            if (attempt < SPIN_LIMIT) {
+                Thread.onSpinWait();
+            } else {
+                Thread.yield();
+            }
+        }
+    },
+    // Parks the thread until the player on the left adds a card or the game is won.
+    PARK {
+        @Override
+        void idle(CardDeck deck, int attempt) {
+            deck.parkUntilSignalled(PARK_NANOS);
+        }
+    };
+
+    // Number of spins SPIN_THEN_YIELD does before it starts yielding.
+    static final int SPIN_LIMIT = 100;
+
+    // Longest time a parked player sleeps before it checks the deck and the game state again.
+    // Bounds the delay if a signal is missed, the normal wake-up comes from CardDeck.addCard or CardGame.notifyAllPlayers.
+    static final long PARK_NANOS = 1_000_000L;
+
+    // Waits once. The attempt is the number of times the caller has already waited for the same card.
+    abstract void idle(CardDeck deck, int attempt);
+
+    // Waits once for space in a full deck. Nobody signals free space, so PARK sleeps for the bounded time instead.
+    void idleForSpace(int attempt) {
+        if (this == PARK) {
+            LockSupport.parkNanos(PARK_NANOS);
+        } else {
+            idle(null, attempt);
+        }
+    }
+}
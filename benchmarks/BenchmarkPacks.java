@@ -0,0 +1,34 @@
+package org.game.benchmarks;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.SplittableRandom;
+
+// Builds the packs used by the benchmarks. The same seed always gives the same pack, so runs can be compared.
+final class BenchmarkPacks {
+    private BenchmarkPacks() {
+    }
+
+    // Creates a pack of 8 cards per player with values 1 to 8. Every value appears many times, so games end quickly.
+    static int[] createPack(int numPlayers, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        int[] pack = new int[8 * numPlayers];
+        for (int i = 0; i < pack.length; i++) {
+            pack[i] = 1 + random.nextInt(8);
+        }
+        return pack;
+    }
+
+    // Writes a pack to a temporary pack file, one card per line, and returns its path.
+    static Path writePackFile(int numPlayers, long seed) throws IOException {
+        StringBuilder builder = new StringBuilder();
+        for (int value : createPack(numPlayers, seed)) {
+            builder.append(value).append('\n');
+        }
+        Path packFile = Files.createTempFile("bench-pack-" + numPlayers + "-", ".txt");
+        packFile.toFile().deleteOnExit();
+        Files.writeString(packFile, builder);
+        return packFile;
+    }
+}
@@ -0,0 +1,86 @@
+package org.game.benchmarks;
+
+import org.game.Card;
+import org.game.CardDeck;
+import org.game.DeckType;
+import org.game.RingBufferCardDeck;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+// Measures CardDeck.addCard and drawCard with one thread, with one producer and one consumer (as in a game),
+// and with several producers and consumers sharing one locked deck.
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DeckBenchmark {
+    private static final Card CARD = new Card(1);
+
+    // A deck of either type, shared by the threads of one benchmark group.
+    @State(Scope.Group)
+    public static class DeckState {
+        @Param({"LOCKED", "RING_BUFFER"})
+        public DeckType deckType;
+
+        CardDeck deck;
+
+        @Setup(Level.Iteration)
+        public void setUp() {
+            deck = deckType == DeckType.LOCKED ? new CardDeck() : new RingBufferCardDeck();
+        }
+    }
+
+    // A locked deck shared by many threads. The ring buffer deck only allows one producer and one consumer.
+    @State(Scope.Group)
+    public static class SharedDeckState {
+        CardDeck deck;
+
+        @Setup(Level.Iteration)
+        public void setUp() {
+            deck = new CardDeck();
+        }
+    }
+
+    // One thread adds a card and draws it back.
+    @Benchmark
+    @Group("singleThread")
+    public Card addThenDraw(DeckState state) {
+        state.deck.addCard(CARD);
+        return state.deck.drawCard();
+    }
+
+    // One thread discards into the deck while another draws from it, as the players either side of a deck do.
+    @Benchmark
+    @Group("producerConsumer")
+    @GroupThreads(1)
+    public void produce(DeckState state) {
+        if (!state.deck.isFull()) {
+            state.deck.addCard(CARD);
+        }
+    }
+
+    @Benchmark
+    @Group("producerConsumer")
+    @GroupThreads(1)
+    public void consume(DeckState state, Blackhole blackhole) {
+        blackhole.consume(state.deck.drawCard());
+    }
+
+    // Several producers and consumers on one locked deck, to show the cost of lock contention.
+    @Benchmark
+    @Group("contended")
+    @GroupThreads(4)
+    public void contendedProduce(SharedDeckState state) {
+        state.deck.addCard(CARD);
+    }
+
+    @Benchmark
+    @Group("contended")
+    @GroupThreads(4)
+    public void contendedConsume(SharedDeckState state, Blackhole blackhole) {
+        blackhole.consume(state.deck.drawCard());
+    }
+}
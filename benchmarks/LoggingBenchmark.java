@@ -0,0 +1,69 @@
+package org.game.benchmarks;
+
+import org.game.CardDeck;
+import org.game.FileOutputSink;
+import org.game.GzipOutputSink;
+import org.game.MemoryOutputSink;
+import org.game.NullOutputSink;
+import org.game.OutputSink;
+import org.game.Player;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+// Measures Player.logAction through each output sink: files written straight away (before the game starts), files and
+// gzip files through the background logger, memory, and nothing at all.
+// The files go to player1_output.txt (or player1_output.txt.gz) in the working directory.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LoggingBenchmark {
+    @Param({"direct", "background", "gzip", "memory", "null"})
+    public String sink;
+
+    private Player player;
+    private OutputSink output;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        CardDeck deck = new CardDeck();
+        player = new Player(1, deck, deck);
+        String directory = System.getProperty("user.dir");
+        switch (sink) {
+            case "background":
+                output = new FileOutputSink(directory);
+                break;
+            case "gzip":
+                output = new GzipOutputSink(directory);
+                break;
+            case "memory":
+                output = new MemoryOutputSink();
+                break;
+            case "null":
+                output = NullOutputSink.INSTANCE;
+                break;
+            default:
+                output = new FileOutputSink(directory); // Never opened, so every line is written straight to the file.
+                break;
+        }
+        player.setOutputSink(output);
+        player.clearOutputFile();
+        if (!sink.equals("direct")) {
+            output.open();
+        }
+    }
+
+    // Waits for the background logger to write everything, so each iteration pays for its own lines.
+    @TearDown(Level.Iteration)
+    public void tearDown() {
+        output.close().join();
+    }
+
+    @Benchmark
+    public void logAction() {
+        player.logAction("player 1 draws a 3 from deck 1");
+    }
+}
@@ -0,0 +1,40 @@
+package org.game.benchmarks;
+
+import org.game.CardGame;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+// Measures loading a pack file and dealing it, for packs of growing size.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PackLoadBenchmark {
+    // Number of players, the pack has 8 cards per player.
+    @Param({"4", "1024", "65536"})
+    public int numPlayers;
+
+    private Path packFile;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        packFile = BenchmarkPacks.writePackFile(numPlayers, 1);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(packFile);
+    }
+
+    // Reads the pack file and deals it to the players and decks. The game is never started.
+    @Benchmark
+    public CardGame loadPack() throws IOException {
+        return new CardGame(numPlayers, packFile.toString());
+    }
+}
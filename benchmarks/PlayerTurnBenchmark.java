@@ -0,0 +1,55 @@
+package org.game.benchmarks;
+
+import org.game.Card;
+import org.game.CardDeck;
+import org.game.CardGame;
+import org.game.DeckType;
+import org.game.Player;
+import org.game.RingBufferCardDeck;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+// Measures a single player turn (draw, discard, win check) and the winning hand check on its own.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PlayerTurnBenchmark {
+    @Param({"LOCKED", "RING_BUFFER"})
+    public DeckType deckType;
+
+    private Player player;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        // A player whose left and right deck are the same, so every discard comes straight back round.
+        // The cards are all different and never the player's preferred value, so the player can never win and the turns go on.
+        CardGame game = new CardGame(2, BenchmarkPacks.createPack(2, 1), deckType);
+        game.setFileOutput(false);
+        CardDeck deck = deckType == DeckType.LOCKED ? new CardDeck() : new RingBufferCardDeck();
+        player = new Player(1, deck, deck);
+        player.setMain(game);
+        player.setOutputEnabled(false);
+        for (int value = 2; value <= 5; value++) {
+            player.addInitialCards(new Card(value));
+        }
+        for (int value = 6; value <= 9; value++) {
+            deck.addCard(new Card(value));
+        }
+    }
+
+    // One full turn.
+    @Benchmark
+    public boolean takeTurn() {
+        return player.takeTurn();
+    }
+
+    // The check made at the end of every turn.
+    @Benchmark
+    public boolean hasWinningHand() {
+        return player.hasWinningHand();
+    }
+}
@@ -0,0 +1,47 @@
+package org.game.benchmarks;
+
+import org.game.CardGame;
+import org.game.DeckType;
+import org.game.ExecutionMode;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+// Measures a whole game, from starting the players to the last of them stopping after the win.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 20)
+@Fork(1)
+public class TimeToWinBenchmark {
+    @Param({"4", "64", "1024"})
+    public int numPlayers;
+
+    @Param({"RING_BUFFER"})
+    public DeckType deckType;
+
+    @Param({"DEDICATED_THREADS", "VIRTUAL_THREADS"})
+    public ExecutionMode executionMode;
+
+    private int[] pack;
+    private CardGame game;
+
+    @Setup(Level.Trial)
+    public void createPack() {
+        pack = BenchmarkPacks.createPack(numPlayers, 1);
+    }
+
+    // Every invocation plays a new game, built outside the measured time.
+    @Setup(Level.Invocation)
+    public void setUp() {
+        game = new CardGame(numPlayers, pack, deckType);
+        game.setFileOutput(false);
+        game.setExecutionMode(executionMode);
+    }
+
+    @Benchmark
+    public Integer timeToWinner() throws Exception {
+        return game.startGame().get(1, TimeUnit.MINUTES); // Completes once every player has stopped.
+    }
+}